@@ -0,0 +1,13 @@
+#!/bin/sh
+# Fast-starting launcher for one JVM per login. Uses the AppCDS archive from
+# scripts/build-cds.sh when present and keeps to the C1 compiler, which is
+# plenty for a turn-based game and avoids C2 warm-up work at startup.
+# Set ZB_STARTUP_TRACE=1 to print the time-to-first-prompt breakdown.
+DIR="$(cd "$(dirname "$0")/.." && pwd)"
+ARCHIVE="$DIR/build/zombie-bombie.jsa"
+
+set -- -XX:TieredStopAtLevel=1 -Dzb.startupTrace="${ZB_STARTUP_TRACE:+true}" -jar "$DIR/build/zombie-bombie.jar" "$@"
+if [ -f "$ARCHIVE" ]; then
+    set -- -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto "$@"
+fi
+cd "$DIR" && exec java "$@"
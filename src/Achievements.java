@@ -0,0 +1,358 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/** Things that happen in a run, as seen by achievements and lifetime stats. */
+enum GameEvent {
+    ATTACK,
+    BLOCK,
+    ITEM_USED,
+    SPECIAL_MOVE,
+    DAMAGE_DEALT,
+    DAMAGE_TAKEN,
+    FIGHT_STARTED,
+    THREAT_DEFEATED,
+    BOSS_DEFEATED,
+    LEVEL_REACHED,
+    CREDITS_EARNED,
+    CREDITS_SPENT,
+    RUN_ENDED;
+
+    public static final int COUNT = values().length;
+}
+
+enum AchievementKind {
+    /** Lifetime number of events reaches the threshold. */
+    COUNT,
+    /** Lifetime sum of event amounts reaches the threshold. */
+    TOTAL,
+    /** One event's amount reaches the threshold. */
+    VALUE,
+    /** The fight ended by the event avoided some events and took little damage. */
+    CLEAN
+}
+
+class AchievementDef {
+    private final int id;
+    private final String key;
+    private final String name;
+    private final String description;
+    private final GameEvent event;
+    private final ThreatType threat;
+    private final AchievementKind kind;
+    private final long threshold;
+    private final int forbiddenEvents;
+    private final int maxDamageTaken;
+
+    public AchievementDef(int id, String key, String name, String description, GameEvent event, ThreatType threat,
+                          AchievementKind kind, long threshold, int forbiddenEvents, int maxDamageTaken) {
+        this.id = id;
+        this.key = key;
+        this.name = name;
+        this.description = description;
+        this.event = event;
+        this.threat = threat;
+        this.kind = kind;
+        this.threshold = threshold;
+        this.forbiddenEvents = forbiddenEvents;
+        this.maxDamageTaken = maxDamageTaken;
+    }
+
+    public int getId() { return id; }
+    public String getKey() { return key; }
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public GameEvent getEvent() { return event; }
+    public ThreatType getThreat() { return threat; }
+    public AchievementKind getKind() { return kind; }
+    public long getThreshold() { return threshold; }
+    public int getForbiddenEvents() { return forbiddenEvents; }
+    public int getMaxDamageTaken() { return maxDamageTaken; }
+}
+
+/** Threshold rules of one kind for one (event, threat) slot, in threshold order. */
+class AchievementLadder {
+    final AchievementDef[] rules;
+    int next;
+
+    AchievementLadder(List<AchievementDef> rules) {
+        this.rules = rules.toArray(new AchievementDef[0]);
+    }
+}
+
+/**
+ * Lifetime statistics and achievement progress for one profile.
+ *
+ * <p>Stats are two flat tables, event count and summed amount, indexed by
+ * {@code event * SLOTS + slot} where slot 0 is "any threat" and slot
+ * {@code t + 1} is threat ordinal {@code t}. Rules are compiled once per
+ * catalog into the same slots: threshold rules become ladders sorted by
+ * threshold with a pointer to the lowest one still locked, so an event costs
+ * two table updates and one comparison per ladder no matter how many rules
+ * exist. Clean-fight rules are only looked at on the event that ends a fight.
+ *
+ * <p>Not thread safe; each {@link Game} owns its engine.
+ */
+class AchievementEngine {
+    private static final int MAGIC = 0x5A42_4143;
+    private static final int VERSION = 1;
+    private static final int SLOTS = ThreatType.values().length + 1;
+
+    private final Path file;
+    private final long[] counts = new long[GameEvent.COUNT * SLOTS];
+    private final long[] totals = new long[GameEvent.COUNT * SLOTS];
+    private final Set<String> achievedKeys = new LinkedHashSet<>();
+    private final ArrayDeque<AchievementDef> unlocked = new ArrayDeque<>();
+
+    private ContentCatalog compiledFrom;
+    private boolean[] achieved;
+    private AchievementLadder[] countLadders;
+    private AchievementLadder[] totalLadders;
+    private AchievementLadder[] valueLadders;
+    private AchievementDef[][] cleanRules;
+
+    private int fightEvents;
+    private long fightDamageTaken;
+
+    AchievementEngine(Path file) {
+        this.file = file;
+    }
+
+    public static Path profileFile(Path home, String profile) {
+        if (!profile.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Profile names may only use letters, digits, '-' and '_'");
+        }
+        return home.resolve("profiles").resolve(profile + ".achievements");
+    }
+
+    public static AchievementEngine open(Path file) throws IOException {
+        AchievementEngine engine = new AchievementEngine(file);
+        if (Files.exists(file)) {
+            engine.readFrom(new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file))));
+        }
+        return engine;
+    }
+
+    public void record(GameEvent event, ThreatType threat, long amount) {
+        ContentCatalog catalog = ContentCatalog.current();
+        if (catalog != compiledFrom) {
+            compile(catalog);
+        }
+
+        if (event == GameEvent.FIGHT_STARTED) {
+            fightEvents = 0;
+            fightDamageTaken = 0;
+        }
+        fightEvents |= 1 << event.ordinal();
+        if (event == GameEvent.DAMAGE_TAKEN) {
+            fightDamageTaken += amount;
+        }
+
+        int slot = event.ordinal() * SLOTS;
+        update(slot, amount);
+        if (threat != null) {
+            update(slot + threat.ordinal() + 1, amount);
+        }
+    }
+
+    /** Next achievement unlocked since the last call, or null. */
+    public AchievementDef pollUnlocked() {
+        return unlocked.poll();
+    }
+
+    public long getCount(GameEvent event, ThreatType threat) {
+        return counts[event.ordinal() * SLOTS + (threat == null ? 0 : threat.ordinal() + 1)];
+    }
+
+    public long getTotal(GameEvent event, ThreatType threat) {
+        return totals[event.ordinal() * SLOTS + (threat == null ? 0 : threat.ordinal() + 1)];
+    }
+
+    public boolean isAchieved(String key) {
+        return achievedKeys.contains(key);
+    }
+
+    private void update(int slot, long amount) {
+        counts[slot]++;
+        totals[slot] += amount;
+        climb(countLadders[slot], counts[slot]);
+        climb(totalLadders[slot], totals[slot]);
+        climb(valueLadders[slot], amount);
+
+        AchievementDef[] clean = cleanRules[slot];
+        if (clean == null) return;
+        for (AchievementDef rule : clean) {
+            if (!achieved[rule.getId()] && (fightEvents & rule.getForbiddenEvents()) == 0
+                    && fightDamageTaken <= rule.getMaxDamageTaken()) {
+                unlock(rule);
+            }
+        }
+    }
+
+    private void climb(AchievementLadder ladder, long value) {
+        if (ladder == null) return;
+
+        while (ladder.next < ladder.rules.length) {
+            AchievementDef rule = ladder.rules[ladder.next];
+            if (!achieved[rule.getId()]) {
+                if (rule.getThreshold() > value) return;
+                unlock(rule);
+            }
+            ladder.next++;
+        }
+    }
+
+    private void unlock(AchievementDef rule) {
+        achieved[rule.getId()] = true;
+        achievedKeys.add(rule.getKey());
+        unlocked.add(rule);
+    }
+
+    /** Builds the per-slot rule index; runs again after a content reload. */
+    private void compile(ContentCatalog catalog) {
+        List<List<AchievementDef>> count = slots();
+        List<List<AchievementDef>> total = slots();
+        List<List<AchievementDef>> value = slots();
+        List<List<AchievementDef>> clean = slots();
+
+        achieved = new boolean[catalog.getAchievementCount()];
+        for (int id = 0; id < achieved.length; id++) {
+            AchievementDef rule = catalog.getAchievement(id);
+            achieved[id] = achievedKeys.contains(rule.getKey());
+            int slot = rule.getEvent().ordinal() * SLOTS + (rule.getThreat() == null ? 0 : rule.getThreat().ordinal() + 1);
+            switch (rule.getKind()) {
+                case COUNT -> count.get(slot).add(rule);
+                case TOTAL -> total.get(slot).add(rule);
+                case VALUE -> value.get(slot).add(rule);
+                case CLEAN -> clean.get(slot).add(rule);
+            }
+        }
+
+        countLadders = ladders(count);
+        totalLadders = ladders(total);
+        valueLadders = ladders(value);
+        cleanRules = new AchievementDef[clean.size()][];
+        for (int slot = 0; slot < clean.size(); slot++) {
+            if (!clean.get(slot).isEmpty()) {
+                cleanRules[slot] = clean.get(slot).toArray(new AchievementDef[0]);
+            }
+        }
+        compiledFrom = catalog;
+    }
+
+    private static List<List<AchievementDef>> slots() {
+        List<List<AchievementDef>> slots = new ArrayList<>(GameEvent.COUNT * SLOTS);
+        for (int i = 0; i < GameEvent.COUNT * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+        return slots;
+    }
+
+    private static AchievementLadder[] ladders(List<List<AchievementDef>> slots) {
+        AchievementLadder[] ladders = new AchievementLadder[slots.size()];
+        for (int slot = 0; slot < slots.size(); slot++) {
+            List<AchievementDef> rules = slots.get(slot);
+            if (rules.isEmpty()) continue;
+            rules.sort(Comparator.comparingLong(AchievementDef::getThreshold));
+            ladders[slot] = new AchievementLadder(rules);
+        }
+        return ladders;
+    }
+
+    /** Writes the profile to a temporary file and moves it into place. */
+    public void save() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeTo(out);
+        }
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), "profile", ".tmp");
+        Files.write(temp, bytes.toByteArray());
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Only non-zero stats are stored, by name so the enums can grow. */
+    private void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        int used = 0;
+        for (long count : counts) {
+            if (count != 0) used++;
+        }
+        out.writeShort(used);
+        ThreatType[] threats = ThreatType.values();
+        for (GameEvent event : GameEvent.values()) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                int index = event.ordinal() * SLOTS + slot;
+                if (counts[index] == 0) continue;
+                out.writeUTF(event.name());
+                out.writeUTF(slot == 0 ? "" : threats[slot - 1].name());
+                out.writeLong(counts[index]);
+                out.writeLong(totals[index]);
+            }
+        }
+        out.writeShort(achievedKeys.size());
+        for (String key : achievedKeys) {
+            out.writeUTF(key);
+        }
+    }
+
+    private void readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Unrecognised profile file " + file);
+        }
+        int used = in.readShort();
+        for (int i = 0; i < used; i++) {
+            String event = in.readUTF();
+            String threat = in.readUTF();
+            long count = in.readLong();
+            long total = in.readLong();
+            try {
+                int index = GameEvent.valueOf(event).ordinal() * SLOTS
+                        + (threat.isEmpty() ? 0 : ThreatType.valueOf(threat).ordinal() + 1);
+                counts[index] = count;
+                totals[index] = total;
+            } catch (IllegalArgumentException e) {
+                // Stat from a newer or older build, dropped.
+            }
+        }
+        int achievedCount = in.readShort();
+        for (int i = 0; i < achievedCount; i++) {
+            achievedKeys.add(in.readUTF());
+        }
+    }
+
+    public void printSummary(PrintStream out) {
+        ContentCatalog catalog = ContentCatalog.current();
+        out.printf("=== Achievements (%d/%d) ===%n", achievedKeys.size(), catalog.getAchievementCount());
+        for (int id = 0; id < catalog.getAchievementCount(); id++) {
+            AchievementDef rule = catalog.getAchievement(id);
+            out.printf("[%s] %s - %s%n", achievedKeys.contains(rule.getKey()) ? "x" : " ",
+                    rule.getName(), rule.getDescription());
+        }
+
+        out.println("\n=== Lifetime stats ===");
+        out.printf("Runs: %d, threats eliminated: %d, bosses defeated: %d%n", getCount(GameEvent.RUN_ENDED, null),
+                getCount(GameEvent.THREAT_DEFEATED, null), getCount(GameEvent.BOSS_DEFEATED, null));
+        out.printf("Damage dealt: %d, damage taken: %d%n",
+                getTotal(GameEvent.DAMAGE_DEALT, null), getTotal(GameEvent.DAMAGE_TAKEN, null));
+        for (ThreatType threat : ThreatType.values()) {
+            long defeated = getCount(GameEvent.THREAT_DEFEATED, threat);
+            long dealt = getTotal(GameEvent.DAMAGE_DEALT, threat);
+            if (defeated == 0 && dealt == 0) continue;
+            out.printf("  %-20s %5d eliminated %8d damage dealt%n", threat.getName(), defeated, dealt);
+        }
+    }
+}
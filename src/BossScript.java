@@ -0,0 +1,365 @@
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A boss behaviour compiled into parallel per-phase tables. Phases are ordered
+ * by descending HP threshold; a value of 0 in an {@code every} column disables
+ * that behaviour for the phase.
+ */
+class BossScript {
+    private final String[] phaseNames;
+    private final int[] thresholds;
+    private final int[] damagePercents;
+    private final int[] encryptPercents;
+    private final int[] encryptTurns;
+    private final int[] encryptEvery;
+    private final String[] summonNames;
+    private final int[] summonDamage;
+    private final int[] summonTurns;
+    private final int[] summonEvery;
+    private final int enrageTurn;
+    private final int enragePercent;
+
+    public BossScript(String[] phaseNames, int[] thresholds, int[] damagePercents,
+                      int[] encryptPercents, int[] encryptTurns, int[] encryptEvery,
+                      String[] summonNames, int[] summonDamage, int[] summonTurns, int[] summonEvery,
+                      int enrageTurn, int enragePercent) {
+        this.phaseNames = phaseNames;
+        this.thresholds = thresholds;
+        this.damagePercents = damagePercents;
+        this.encryptPercents = encryptPercents;
+        this.encryptTurns = encryptTurns;
+        this.encryptEvery = encryptEvery;
+        this.summonNames = summonNames;
+        this.summonDamage = summonDamage;
+        this.summonTurns = summonTurns;
+        this.summonEvery = summonEvery;
+        this.enrageTurn = enrageTurn;
+        this.enragePercent = enragePercent;
+    }
+
+    public int getPhaseCount() { return phaseNames.length; }
+    public String getPhaseName(int phase) { return phaseNames[phase]; }
+    public int getThreshold(int phase) { return thresholds[phase]; }
+    public int getDamagePercent(int phase) { return damagePercents[phase]; }
+    public int getEncryptPercent(int phase) { return encryptPercents[phase]; }
+    public int getEncryptTurns(int phase) { return encryptTurns[phase]; }
+    public int getEncryptEvery(int phase) { return encryptEvery[phase]; }
+    public String getSummonName(int phase) { return summonNames[phase]; }
+    public int getSummonDamage(int phase) { return summonDamage[phase]; }
+    public int getSummonTurns(int phase) { return summonTurns[phase]; }
+    public int getSummonEvery(int phase) { return summonEvery[phase]; }
+    public int getEnrageTurn() { return enrageTurn; }
+    public int getEnragePercent() { return enragePercent; }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeShort(phaseNames.length);
+        for (int i = 0; i < phaseNames.length; i++) {
+            out.writeUTF(phaseNames[i]);
+            out.writeShort(thresholds[i]);
+            out.writeShort(damagePercents[i]);
+            out.writeShort(encryptPercents[i]);
+            out.writeShort(encryptTurns[i]);
+            out.writeShort(encryptEvery[i]);
+            out.writeUTF(summonNames[i]);
+            out.writeShort(summonDamage[i]);
+            out.writeShort(summonTurns[i]);
+            out.writeShort(summonEvery[i]);
+        }
+        out.writeShort(enrageTurn);
+        out.writeShort(enragePercent);
+    }
+
+    static BossScript readFrom(DataInputStream in) throws IOException {
+        int count = in.readShort();
+        String[] phaseNames = new String[count];
+        String[] summonNames = new String[count];
+        int[][] columns = new int[8][count];
+        for (int i = 0; i < count; i++) {
+            phaseNames[i] = in.readUTF();
+            for (int c = 0; c < 5; c++) {
+                columns[c][i] = in.readShort();
+            }
+            summonNames[i] = in.readUTF();
+            for (int c = 5; c < 8; c++) {
+                columns[c][i] = in.readShort();
+            }
+        }
+        return new BossScript(phaseNames, columns[0], columns[1], columns[2], columns[3], columns[4],
+                summonNames, columns[5], columns[6], columns[7], in.readShort(), in.readShort());
+    }
+}
+
+/**
+ * Compiles the boss DSL in {@code bosses.def}:
+ *
+ * <pre>
+ * boss RANSOMWARE
+ *   phase Encryption at 70
+ *     damage 110
+ *     encrypt 30 for 2 every 3
+ *     summon Locker 5 for 3 every 4
+ *   enrage after 14 damage 180
+ * end
+ * </pre>
+ *
+ * A phase starts once the boss is at or below {@code at} percent HP.
+ * {@code encrypt} cuts the player's damage by the percentage and locks items;
+ * {@code summon} adds a minion that hits for its damage every boss turn.
+ */
+class BossScriptCompiler {
+    public static final String FILE = "bosses.def";
+
+    private final BossScript[] scripts = new BossScript[ThreatType.values().length];
+
+    public void parse(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        ThreatType boss = null;
+        List<int[]> phases = new ArrayList<>();
+        List<String> phaseNames = new ArrayList<>();
+        List<String> summonNames = new ArrayList<>();
+        int[] enrage = new int[2];
+        String line;
+        int lineNumber = 0;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            String[] words = (comment >= 0 ? line.substring(0, comment) : line).strip().split("\\s+");
+            if (words[0].isEmpty()) continue;
+
+            try {
+                switch (words[0]) {
+                    case "boss" -> {
+                        if (boss != null) throw error(lineNumber, "missing 'end' before new boss");
+                        boss = ThreatType.valueOf(words[1]);
+                        phases.clear();
+                        phaseNames.clear();
+                        summonNames.clear();
+                        enrage = new int[2];
+                    }
+                    case "phase" -> {
+                        requireBoss(boss, lineNumber);
+                        if (words.length < 4 || !words[words.length - 2].equals("at")) {
+                            throw error(lineNumber, "expected 'phase <name> at <hp%>'");
+                        }
+                        phaseNames.add(String.join(" ", Arrays.copyOfRange(words, 1, words.length - 2)));
+                        summonNames.add("");
+                        int[] phase = new int[8];
+                        phase[0] = Integer.parseInt(words[words.length - 1]);
+                        phase[1] = 100;
+                        phases.add(phase);
+                    }
+                    case "damage" -> currentPhase(phases, lineNumber)[1] = Integer.parseInt(words[1]);
+                    case "encrypt" -> {
+                        int[] phase = currentPhase(phases, lineNumber);
+                        expect(words, lineNumber, 6, "encrypt <percent> for <turns> every <n>");
+                        phase[2] = Integer.parseInt(words[1]);
+                        phase[3] = Integer.parseInt(words[3]);
+                        phase[4] = Integer.parseInt(words[5]);
+                    }
+                    case "summon" -> {
+                        int[] phase = currentPhase(phases, lineNumber);
+                        expect(words, lineNumber, 7, "summon <name> <damage> for <turns> every <n>");
+                        summonNames.set(summonNames.size() - 1, words[1]);
+                        phase[5] = Integer.parseInt(words[2]);
+                        phase[6] = Integer.parseInt(words[4]);
+                        phase[7] = Integer.parseInt(words[6]);
+                    }
+                    case "enrage" -> {
+                        requireBoss(boss, lineNumber);
+                        expect(words, lineNumber, 5, "enrage after <turns> damage <percent>");
+                        enrage[0] = Integer.parseInt(words[2]);
+                        enrage[1] = Integer.parseInt(words[4]);
+                    }
+                    case "end" -> {
+                        requireBoss(boss, lineNumber);
+                        scripts[boss.ordinal()] = build(boss, phases, phaseNames, summonNames, enrage, lineNumber);
+                        boss = null;
+                    }
+                    default -> throw error(lineNumber, "unknown keyword '" + words[0] + "'");
+                }
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                if (e instanceof ContentException) throw e;
+                throw error(lineNumber, "invalid statement '" + line.strip() + "'");
+            }
+        }
+        if (boss != null) {
+            throw new ContentException(FILE + ": boss " + boss + " is missing 'end'");
+        }
+    }
+
+    public BossScript[] compile() {
+        return scripts.clone();
+    }
+
+    private static BossScript build(ThreatType boss, List<int[]> phases, List<String> phaseNames,
+                                    List<String> summonNames, int[] enrage, int lineNumber) {
+        if (phases.isEmpty()) {
+            throw error(lineNumber, "boss " + boss + " has no phases");
+        }
+        Integer[] order = new Integer[phases.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> phases.get(b)[0] - phases.get(a)[0]);
+
+        int count = phases.size();
+        String[] names = new String[count];
+        String[] summons = new String[count];
+        int[][] columns = new int[8][count];
+        for (int i = 0; i < count; i++) {
+            int[] phase = phases.get(order[i]);
+            names[i] = phaseNames.get(order[i]);
+            summons[i] = summonNames.get(order[i]);
+            for (int c = 0; c < 8; c++) {
+                columns[c][i] = phase[c];
+            }
+        }
+        return new BossScript(names, columns[0], columns[1], columns[2], columns[3], columns[4],
+                summons, columns[5], columns[6], columns[7], enrage[0], enrage[1]);
+    }
+
+    private static int[] currentPhase(List<int[]> phases, int lineNumber) {
+        if (phases.isEmpty()) {
+            throw error(lineNumber, "statement outside of a phase");
+        }
+        return phases.get(phases.size() - 1);
+    }
+
+    private static void requireBoss(ThreatType boss, int lineNumber) {
+        if (boss == null) {
+            throw error(lineNumber, "statement outside of a boss block");
+        }
+    }
+
+    private static void expect(String[] words, int lineNumber, int length, String form) {
+        if (words.length != length) {
+            throw error(lineNumber, "expected '" + form + "'");
+        }
+    }
+
+    private static ContentException error(int lineNumber, String message) {
+        return new ContentException(FILE + ":" + lineNumber + ": " + message);
+    }
+}
+
+/**
+ * Runtime state of one scripted boss fight. Reused across fights; every turn is
+ * a handful of table reads regardless of how many phases a script has.
+ */
+class BossState {
+    public static final int PHASE_CHANGED = 1;
+    public static final int ENRAGED = 2;
+    public static final int ENCRYPTED = 4;
+    public static final int SUMMONED = 8;
+
+    private static final int MAX_ADDS = 4;
+
+    private final int[] addDamage = new int[MAX_ADDS];
+    private final int[] addTurns = new int[MAX_ADDS];
+    private BossScript script;
+    private int phase;
+    private int turn;
+    private int phaseTurn;
+    private int encryptTurnsLeft;
+    private int encryptPercent;
+
+    public void begin(BossScript script) {
+        this.script = script;
+        this.phase = 0;
+        this.turn = 0;
+        this.phaseTurn = 0;
+        this.encryptTurnsLeft = 0;
+        this.encryptPercent = 0;
+        Arrays.fill(addDamage, 0);
+        Arrays.fill(addTurns, 0);
+    }
+
+    public void end() {
+        this.script = null;
+    }
+
+    public boolean isActive() {
+        return script != null;
+    }
+
+    public int incomingDamage(int damage) {
+        if (script == null) return damage;
+
+        boolean enraged = script.getEnrageTurn() > 0 && turn >= script.getEnrageTurn();
+        int percent = enraged ? script.getEnragePercent() : script.getDamagePercent(phase);
+        int total = damage * percent / 100;
+        for (int i = 0; i < MAX_ADDS; i++) {
+            total += addDamage[i];
+        }
+        return total;
+    }
+
+    public int outgoingDamage(int damage) {
+        return encryptTurnsLeft > 0 ? damage * (100 - encryptPercent) / 100 : damage;
+    }
+
+    public boolean itemsLocked() {
+        return encryptTurnsLeft > 0;
+    }
+
+    public int advance(int health, int maxHealth) {
+        if (script == null) return 0;
+
+        int events = 0;
+        turn++;
+        phaseTurn++;
+        if (encryptTurnsLeft > 0) encryptTurnsLeft--;
+        for (int i = 0; i < MAX_ADDS; i++) {
+            if (addTurns[i] > 0 && --addTurns[i] == 0) addDamage[i] = 0;
+        }
+
+        while (phase + 1 < script.getPhaseCount() && health * 100 <= script.getThreshold(phase + 1) * maxHealth) {
+            phase++;
+            phaseTurn = 0;
+            events |= PHASE_CHANGED;
+        }
+        if (turn == script.getEnrageTurn()) {
+            events |= ENRAGED;
+        }
+
+        int encryptEvery = script.getEncryptEvery(phase);
+        if (encryptEvery > 0 && phaseTurn % encryptEvery == 0) {
+            encryptTurnsLeft = script.getEncryptTurns(phase);
+            encryptPercent = script.getEncryptPercent(phase);
+            events |= ENCRYPTED;
+        }
+
+        int summonEvery = script.getSummonEvery(phase);
+        if (summonEvery > 0 && phaseTurn % summonEvery == 0) {
+            for (int i = 0; i < MAX_ADDS; i++) {
+                if (addTurns[i] == 0) {
+                    addDamage[i] = script.getSummonDamage(phase);
+                    addTurns[i] = script.getSummonTurns(phase);
+                    events |= SUMMONED;
+                    break;
+                }
+            }
+        }
+        return events;
+    }
+
+    public int getActiveAdds() {
+        int count = 0;
+        for (int i = 0; i < MAX_ADDS; i++) {
+            if (addTurns[i] > 0) count++;
+        }
+        return count;
+    }
+
+    public String getPhaseName() { return script.getPhaseName(phase); }
+    public String getSummonName() { return script.getSummonName(phase); }
+    public int getEncryptPercent() { return encryptPercent; }
+}
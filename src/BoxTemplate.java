@@ -0,0 +1,340 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A box-drawn screen layout, parsed once into rows of static text and typed
+ * slots. One layout line per row:
+ *
+ * <pre>
+ * [                      top border
+ * ^TITLE                 centred row, drawn in the box colour
+ * Name: {text}           body row
+ * ]                      bottom border
+ * </pre>
+ *
+ * Slots are {@code {int}} or {@code {text}}, optionally with a column width:
+ * {@code {int:3}} is right-aligned, {@code {text:20}} is left-aligned and
+ * cut with an ellipsis when longer. The last {@code {text}} slot of a body row
+ * wraps onto indented continuation rows; anything else that overflows is cut
+ * at the right border. Layouts without borders are fragments, to be combined
+ * with others into one box by a {@link BoxCanvas}.
+ */
+class BoxTemplate {
+    public static final int WIDTH = 38;
+    public static final int MAX_SLOTS = 12;
+
+    enum RowKind { TOP, TITLE, BODY, BOTTOM }
+
+    /** Closes whatever box is open, in its colour. */
+    public static final BoxTemplate END = compile("", "]");
+
+    private final String color;
+    private final RowKind[] kinds;
+    private final String[][] literals;
+    private final int[][] slots;
+    private final boolean[] numeric;
+    private final int[] widths;
+
+    private BoxTemplate(String color, RowKind[] kinds, String[][] literals, int[][] slots,
+                        boolean[] numeric, int[] widths) {
+        this.color = color;
+        this.kinds = kinds;
+        this.literals = literals;
+        this.slots = slots;
+        this.numeric = numeric;
+        this.widths = widths;
+    }
+
+    public static BoxTemplate compile(String color, String layout) {
+        List<RowKind> kinds = new ArrayList<>();
+        List<String[]> literals = new ArrayList<>();
+        List<int[]> rowSlots = new ArrayList<>();
+        List<Boolean> numeric = new ArrayList<>();
+        List<Integer> widths = new ArrayList<>();
+
+        for (String line : layout.lines().toList()) {
+            RowKind kind;
+            String text;
+            if (line.equals("[")) {
+                kind = RowKind.TOP;
+                text = "";
+            } else if (line.equals("]")) {
+                kind = RowKind.BOTTOM;
+                text = "";
+            } else if (line.startsWith("^")) {
+                kind = RowKind.TITLE;
+                text = line.substring(1);
+            } else {
+                kind = RowKind.BODY;
+                text = line;
+            }
+
+            List<String> segments = new ArrayList<>();
+            List<Integer> indexes = new ArrayList<>();
+            int position = 0;
+            int open;
+            while ((open = text.indexOf('{', position)) >= 0) {
+                int close = text.indexOf('}', open);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed slot in box layout: " + line);
+                }
+                segments.add(text.substring(position, open));
+                String slot = text.substring(open + 1, close);
+                int colon = slot.indexOf(':');
+                String type = colon < 0 ? slot : slot.substring(0, colon);
+                if (!type.equals("int") && !type.equals("text")) {
+                    throw new IllegalArgumentException("Unknown slot type {" + slot + "} in box layout: " + line);
+                }
+                numeric.add(type.equals("int"));
+                widths.add(colon < 0 ? 0 : Integer.parseInt(slot.substring(colon + 1)));
+                indexes.add(numeric.size() - 1);
+                position = close + 1;
+            }
+            segments.add(text.substring(position));
+
+            kinds.add(kind);
+            literals.add(segments.toArray(new String[0]));
+            rowSlots.add(indexes.stream().mapToInt(Integer::intValue).toArray());
+        }
+        if (numeric.size() > MAX_SLOTS) {
+            throw new IllegalArgumentException("Box layouts take at most " + MAX_SLOTS + " slots");
+        }
+
+        boolean[] numericSlots = new boolean[numeric.size()];
+        int[] slotWidths = new int[widths.size()];
+        for (int i = 0; i < numericSlots.length; i++) {
+            numericSlots[i] = numeric.get(i);
+            slotWidths[i] = widths.get(i);
+        }
+        return new BoxTemplate(color, kinds.toArray(new RowKind[0]), literals.toArray(new String[0][]),
+                rowSlots.toArray(new int[0][]), numericSlots, slotWidths);
+    }
+
+    String getColor() { return color; }
+    int getRowCount() { return kinds.length; }
+    RowKind getKind(int row) { return kinds[row]; }
+    String[] getLiterals(int row) { return literals[row]; }
+    int[] getSlots(int row) { return slots[row]; }
+    int getSlotCount() { return numeric.length; }
+    boolean isNumeric(int slot) { return numeric[slot]; }
+    int getWidth(int slot) { return widths[slot]; }
+}
+
+/**
+ * Reusable buffer that fills {@link BoxTemplate}s. Values are given in slot
+ * order, then {@link #end()} renders the rows; several templates can be
+ * rendered into one box before it is printed. Filling and rendering work on
+ * the same builder every time and never format or allocate.
+ *
+ * <pre>
+ * canvas.begin(LEVEL_UP).number(level).print(out);
+ * </pre>
+ */
+class BoxCanvas {
+    private static final String TOP = "╔" + "═".repeat(BoxTemplate.WIDTH) + "╗";
+    private static final String BOTTOM = "╚" + "═".repeat(BoxTemplate.WIDTH) + "╝";
+    private static final char[] SPACES = " ".repeat(BoxTemplate.WIDTH).toCharArray();
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final StringBuilder buffer = new StringBuilder(1024);
+    private final long[] numbers = new long[BoxTemplate.MAX_SLOTS];
+    private final CharSequence[] texts = new CharSequence[BoxTemplate.MAX_SLOTS];
+    private BoxTemplate template;
+    private String color;
+    private String frameColor = "";
+    private int filled;
+    private int rowStart;
+
+    public BoxCanvas begin(BoxTemplate template) {
+        return begin(template, template.getColor());
+    }
+
+    /** Starts filling {@code template}, drawing its borders and titles in {@code color}. */
+    public BoxCanvas begin(BoxTemplate template, String color) {
+        if (this.template != null) {
+            end();
+        }
+        this.template = template;
+        this.color = color;
+        this.filled = 0;
+        return this;
+    }
+
+    public BoxCanvas number(long value) {
+        checkSlot(true);
+        numbers[filled++] = value;
+        return this;
+    }
+
+    public BoxCanvas text(CharSequence value) {
+        checkSlot(false);
+        texts[filled++] = value;
+        return this;
+    }
+
+    /** Renders the rows of the current template into the buffer. */
+    public BoxCanvas end() {
+        if (filled != template.getSlotCount()) {
+            throw new IllegalStateException("Box template needs " + template.getSlotCount() + " values, got " + filled);
+        }
+        for (int row = 0; row < template.getRowCount(); row++) {
+            renderRow(row);
+        }
+        for (int i = 0; i < filled; i++) {
+            texts[i] = null;
+        }
+        template = null;
+        return this;
+    }
+
+    /** Ends the current template, writes the whole box and clears the buffer. */
+    public void print(PrintStream out) {
+        if (template != null) {
+            end();
+        }
+        out.append(buffer);
+        buffer.setLength(0);
+    }
+
+    /** Ends the current template and returns the box as text. */
+    public String render() {
+        if (template != null) {
+            end();
+        }
+        String text = buffer.toString();
+        buffer.setLength(0);
+        return text;
+    }
+
+    private void checkSlot(boolean number) {
+        if (template == null || filled >= template.getSlotCount()) {
+            throw new IllegalStateException("No open slot in box template");
+        }
+        if (template.isNumeric(filled) != number) {
+            throw new IllegalStateException("Slot " + filled + " takes " + (number ? "text" : "a number"));
+        }
+    }
+
+    private void renderRow(int row) {
+        switch (template.getKind(row)) {
+            case TOP -> {
+                frameColor = color;
+                border(TOP);
+                return;
+            }
+            case BOTTOM -> {
+                border(BOTTOM);
+                return;
+            }
+            default -> { }
+        }
+
+        boolean title = template.getKind(row) == BoxTemplate.RowKind.TITLE;
+        if (title) buffer.append(frameColor);
+        buffer.append('║');
+        rowStart = buffer.length();
+        if (!title) buffer.append(' ');
+
+        String[] literals = template.getLiterals(row);
+        int[] slots = template.getSlots(row);
+        for (int i = 0; i < slots.length; i++) {
+            buffer.append(literals[i]);
+            int slot = slots[i];
+            int width = template.getWidth(slot);
+            if (template.isNumeric(slot)) {
+                appendNumber(numbers[slot], width);
+            } else if (width > 0) {
+                appendText(texts[slot], width);
+            } else if (!title && i == slots.length - 1) {
+                appendWrapped(texts[slot], literals[i + 1].length());
+            } else {
+                buffer.append(texts[slot]);
+            }
+        }
+        buffer.append(literals[literals.length - 1]);
+        finishRow(title);
+    }
+
+    private void border(String border) {
+        buffer.append(frameColor).append(border);
+        if (!frameColor.isEmpty()) buffer.append(ConsoleColors.RESET);
+        buffer.append(NEWLINE);
+    }
+
+    private void finishRow(boolean title) {
+        int length = buffer.length() - rowStart;
+        if (length > BoxTemplate.WIDTH) {
+            while (buffer.length() - rowStart > BoxTemplate.WIDTH && buffer.charAt(buffer.length() - 1) == ' ') {
+                buffer.setLength(buffer.length() - 1);
+            }
+            if (buffer.length() - rowStart > BoxTemplate.WIDTH) {
+                buffer.setLength(rowStart + BoxTemplate.WIDTH - 1);
+                buffer.append('…');
+            }
+            length = buffer.length() - rowStart;
+        }
+        if (title) {
+            buffer.insert(rowStart, SPACES, 0, (BoxTemplate.WIDTH - length) / 2);
+        }
+        buffer.append(SPACES, 0, BoxTemplate.WIDTH - (buffer.length() - rowStart));
+        buffer.append('║');
+        if (title && !frameColor.isEmpty()) buffer.append(ConsoleColors.RESET);
+        buffer.append(NEWLINE);
+    }
+
+    private void appendNumber(long value, int width) {
+        int digits = value < 0 ? 2 : 1;
+        for (long rest = Math.abs(value / 10); rest > 0; rest /= 10) {
+            digits++;
+        }
+        if (width > digits) {
+            buffer.append(SPACES, 0, Math.min(width - digits, SPACES.length));
+        }
+        buffer.append(value);
+    }
+
+    private void appendText(CharSequence text, int width) {
+        if (text.length() <= width) {
+            buffer.append(text);
+            buffer.append(SPACES, 0, Math.min(width - text.length(), SPACES.length));
+        } else {
+            buffer.append(text, 0, width - 1).append('…');
+        }
+    }
+
+    /**
+     * Breaks at spaces onto continuation rows indented to where the slot
+     * starts, keeping {@code reserve} columns free for the text after it.
+     */
+    private void appendWrapped(CharSequence text, int reserve) {
+        int indent = buffer.length() - rowStart;
+        int position = 0;
+        int length = text.length();
+        while (true) {
+            int room = BoxTemplate.WIDTH - reserve - (buffer.length() - rowStart);
+            if (length - position <= room || room <= 0) {
+                buffer.append(text, position, length);
+                return;
+            }
+
+            int cut = position + room;
+            int space = cut;
+            while (space > position && text.charAt(space) != ' ') {
+                space--;
+            }
+            int next = space > position ? space : cut;
+            buffer.append(text, position, next);
+            position = next;
+            while (position < length && text.charAt(position) == ' ') {
+                position++;
+            }
+            if (position >= length) return;
+
+            finishRow(false);
+            buffer.append('║');
+            rowStart = buffer.length();
+            buffer.append(SPACES, 0, Math.min(indent, BoxTemplate.WIDTH / 2));
+        }
+    }
+}
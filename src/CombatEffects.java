@@ -0,0 +1,124 @@
+import java.util.Arrays;
+import java.util.List;
+
+enum MoveStat {
+    DAMAGE,
+    BONUS,
+    VS,
+    HEAL,
+    BLOCK,
+    STUN,
+    REDUCE,
+    COUNTER,
+    EXPOSE,
+    TURNS,
+    WEAR,
+    COOLDOWN;
+
+    public static final int COUNT = values().length;
+}
+
+/**
+ * A weapon's special-move effects compiled into one flat int table,
+ * {@code stats[slot * MoveStat.COUNT + stat]}. Percentages are whole
+ * numbers and {@link MoveStat#VS} is a bit mask of {@link ThreatType} ordinals
+ * that take the {@link MoveStat#BONUS}.
+ */
+class MoveTable {
+    private final int[] stats;
+
+    public MoveTable(List<MoveDef> moves) {
+        this.stats = new int[moves.size() * MoveStat.COUNT];
+        for (int slot = 0; slot < moves.size(); slot++) {
+            System.arraycopy(moves.get(slot).getStats(), 0, stats, slot * MoveStat.COUNT, MoveStat.COUNT);
+        }
+    }
+
+    public int get(int slot, MoveStat stat) {
+        return stats[slot * MoveStat.COUNT + stat.ordinal()];
+    }
+
+    public int damage(int slot, int weaponPower, ThreatType target) {
+        int base = slot * MoveStat.COUNT;
+        int damage = stats[base + MoveStat.DAMAGE.ordinal()] * weaponPower / 100;
+        int bonusApplies = (stats[base + MoveStat.VS.ordinal()] >>> target.ordinal()) & 1;
+        return damage + bonusApplies * damage * stats[base + MoveStat.BONUS.ordinal()] / 100;
+    }
+}
+
+/**
+ * Per-fight status effects from special moves. One instance is reused for every
+ * fight of a game and reset at the start of each.
+ */
+class CombatState {
+    public static final int MAX_MOVES = 8;
+
+    private final int[] cooldowns = new int[MAX_MOVES];
+    private int blockCharges;
+    private int stunTurns;
+    private int reducePercent;
+    private int counterPercent;
+    private int exposePercent;
+    private int effectTurns;
+
+    public void reset() {
+        Arrays.fill(cooldowns, 0);
+        blockCharges = 0;
+        stunTurns = 0;
+        reducePercent = 0;
+        counterPercent = 0;
+        exposePercent = 0;
+        effectTurns = 0;
+    }
+
+    public void apply(MoveTable moves, int slot) {
+        blockCharges += moves.get(slot, MoveStat.BLOCK);
+        stunTurns += moves.get(slot, MoveStat.STUN);
+        int turns = moves.get(slot, MoveStat.TURNS);
+        if (turns > 0) {
+            reducePercent = Math.max(reducePercent, moves.get(slot, MoveStat.REDUCE));
+            counterPercent = Math.max(counterPercent, moves.get(slot, MoveStat.COUNTER));
+            exposePercent = Math.max(exposePercent, moves.get(slot, MoveStat.EXPOSE));
+            effectTurns = Math.max(effectTurns, turns);
+        }
+        cooldowns[slot] = moves.get(slot, MoveStat.COOLDOWN) + 1;
+    }
+
+    public int amplify(int damage) {
+        return damage * (100 + exposePercent) / 100;
+    }
+
+    public boolean consumeStun() {
+        if (stunTurns == 0) return false;
+        stunTurns--;
+        return true;
+    }
+
+    public boolean consumeBlock() {
+        if (blockCharges == 0) return false;
+        blockCharges--;
+        return true;
+    }
+
+    public int reduce(int damage) {
+        return damage * (100 - reducePercent) / 100;
+    }
+
+    public int counterDamage(int weaponPower) {
+        return weaponPower * counterPercent / 100;
+    }
+
+    public void endTurn() {
+        for (int i = 0; i < cooldowns.length; i++) {
+            if (cooldowns[i] > 0) cooldowns[i]--;
+        }
+        if (effectTurns > 0 && --effectTurns == 0) {
+            reducePercent = 0;
+            counterPercent = 0;
+            exposePercent = 0;
+        }
+    }
+
+    public int getCooldown(int slot) { return cooldowns[slot]; }
+    public boolean isReady(int slot) { return cooldowns[slot] == 0; }
+}
@@ -0,0 +1,856 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+class GameFiles {
+    public static Path home() {
+        String home = System.getProperty("zb.home");
+        return home != null ? Paths.get(home) : Paths.get(System.getProperty("user.home"), ".zombie-bombie");
+    }
+}
+
+class ThreatDef {
+    private final String name;
+    private final String description;
+    private final String attackMessage;
+    private final int baseHealth;
+    private final int baseDamage;
+
+    public ThreatDef(String name, String description, String attackMessage, int baseHealth, int baseDamage) {
+        this.name = name;
+        this.description = description;
+        this.attackMessage = attackMessage;
+        this.baseHealth = baseHealth;
+        this.baseDamage = baseDamage;
+    }
+
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public String getAttackMessage() { return attackMessage; }
+    public int getBaseHealth() { return baseHealth; }
+    public int getBaseDamage() { return baseDamage; }
+}
+
+class DefenseDef {
+    private final String name;
+    private final String description;
+    private final int powerLevel;
+
+    public DefenseDef(String name, String description, int powerLevel) {
+        this.name = name;
+        this.description = description;
+        this.powerLevel = powerLevel;
+    }
+
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public int getPowerLevel() { return powerLevel; }
+}
+
+class UpgradeDef {
+    private final String name;
+    private final String description;
+    private final int bonusDamage;
+
+    public UpgradeDef(String name, String description, int bonusDamage) {
+        this.name = name;
+        this.description = description;
+        this.bonusDamage = bonusDamage;
+    }
+
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public int getBonusDamage() { return bonusDamage; }
+}
+
+class ItemDef {
+    private final int id;
+    private final String name;
+    private final String description;
+    private final ItemType type;
+    private final int power;
+    private final int uses;
+    private final int price;
+    private final boolean consumable;
+    private final boolean rare;
+    private final boolean staple;
+
+    public ItemDef(int id, String name, String description, ItemType type, int power, int uses, int price,
+                   boolean consumable, boolean rare, boolean staple) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.type = type;
+        this.power = power;
+        this.uses = uses;
+        this.price = price;
+        this.consumable = consumable;
+        this.rare = rare;
+        this.staple = staple;
+    }
+
+    public Item create() {
+        return new Item(id, name, description, type, power, uses, price, consumable);
+    }
+
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public ItemType getType() { return type; }
+    public int getPower() { return power; }
+    public int getUses() { return uses; }
+    public int getPrice() { return price; }
+    public boolean isConsumable() { return consumable; }
+    public boolean isRare() { return rare; }
+    public boolean isStaple() { return staple; }
+}
+
+class MoveDef {
+    private final String name;
+    private final String description;
+    private final int[] stats;
+
+    public MoveDef(String name, String description, int[] stats) {
+        if (stats.length != MoveStat.COUNT) {
+            throw new IllegalArgumentException("Move " + name + " needs " + MoveStat.COUNT + " stats");
+        }
+        this.name = name;
+        this.description = description;
+        this.stats = stats.clone();
+    }
+
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public int[] getStats() { return stats.clone(); }
+
+    @Override
+    public String toString() {
+        return name + " - " + description;
+    }
+}
+
+/**
+ * Immutable weapon template shared by every {@link Weapon} of that kind,
+ * including the precomputed special-move display list.
+ */
+class WeaponDef {
+    private final int id;
+    private final String name;
+    private final int power;
+    private final DefenseType defenseType;
+    private final int durability;
+    private final int level;
+    private final boolean soldInShop;
+    private final List<MoveDef> moves;
+    private final List<String> moveDescriptions;
+    private final MoveTable moveTable;
+
+    public WeaponDef(int id, String name, int power, DefenseType defenseType, int durability, int level,
+                     boolean soldInShop, List<MoveDef> moves) {
+        this.id = id;
+        this.name = name;
+        this.power = power;
+        this.defenseType = defenseType;
+        this.durability = durability;
+        this.level = level;
+        this.soldInShop = soldInShop;
+        this.moves = List.copyOf(moves);
+        List<String> descriptions = new ArrayList<>();
+        for (MoveDef move : moves) {
+            descriptions.add(move.toString());
+        }
+        this.moveDescriptions = List.copyOf(descriptions);
+        this.moveTable = new MoveTable(moves);
+    }
+
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public int getPower() { return power; }
+    public DefenseType getDefenseType() { return defenseType; }
+    public int getDurability() { return durability; }
+    public int getLevel() { return level; }
+    public boolean isSoldInShop() { return soldInShop; }
+    public List<MoveDef> getMoves() { return moves; }
+    public List<String> getMoveDescriptions() { return moveDescriptions; }
+
+    /** This weapon's moves, indexed by slot; travels with the template so a reload cannot remap it. */
+    public MoveTable getMoveTable() { return moveTable; }
+}
+
+/**
+ * Immutable, id-indexed view of all game content. Enum-backed content
+ * ({@link ThreatType}, {@link DefenseType}, {@link WeaponUpgrade}) is stored in
+ * ordinal order; items and weapons get dense ids in definition order.
+ *
+ * <p>The active catalog is swapped atomically when the definition files change,
+ * so running sessions pick up new numbers at their next lookup.
+ */
+class ContentCatalog {
+    public static final String STARTING_WEAPON = "BASIC_ANTIVIRUS";
+
+    private static volatile ContentCatalog current;
+
+    private final ThreatDef[] threats;
+    private final DefenseDef[] defenses;
+    private final UpgradeDef[] upgrades;
+    private final ItemDef[] items;
+    private final WeaponDef[] weapons;
+    private final String[] itemKeys;
+    private final String[] weaponKeys;
+    private final int[] commonItemIds;
+    private final int[] rareItemIds;
+    private final int[] shopWeaponIds;
+    private final int stapleItemId;
+    private final BossScript[] bossScripts;
+    private final AchievementDef[] achievements;
+    private final Map<String, Integer> weaponIdsByKey = new HashMap<>();
+
+    ContentCatalog(ThreatDef[] threats, DefenseDef[] defenses, UpgradeDef[] upgrades,
+                   ItemDef[] items, String[] itemKeys, WeaponDef[] weapons, String[] weaponKeys,
+                   BossScript[] bossScripts, AchievementDef[] achievements) {
+        this.threats = threats;
+        this.bossScripts = bossScripts;
+        this.achievements = achievements;
+        this.defenses = defenses;
+        this.upgrades = upgrades;
+        this.items = items;
+        this.itemKeys = itemKeys;
+        this.weapons = weapons;
+        this.weaponKeys = weaponKeys;
+
+        List<Integer> common = new ArrayList<>();
+        List<Integer> rare = new ArrayList<>();
+        int staple = -1;
+        for (ItemDef item : items) {
+            (item.isRare() ? rare : common).add(item.getId());
+            if (item.isStaple() && staple < 0) staple = item.getId();
+        }
+        if (common.isEmpty() || rare.isEmpty()) {
+            throw new IllegalStateException("Content needs at least one common and one rare item");
+        }
+        this.commonItemIds = common.stream().mapToInt(Integer::intValue).toArray();
+        this.rareItemIds = rare.stream().mapToInt(Integer::intValue).toArray();
+        this.stapleItemId = staple >= 0 ? staple : commonItemIds[0];
+
+        List<Integer> shop = new ArrayList<>();
+        for (int i = 0; i < weapons.length; i++) {
+            weaponIdsByKey.put(weaponKeys[i], i);
+            if (weapons[i].isSoldInShop()) shop.add(i);
+        }
+        this.shopWeaponIds = shop.stream().mapToInt(Integer::intValue).toArray();
+        if (!weaponIdsByKey.containsKey(STARTING_WEAPON)) {
+            throw new IllegalStateException("Content is missing the starting weapon " + STARTING_WEAPON);
+        }
+    }
+
+    public static ContentCatalog current() {
+        ContentCatalog catalog = current;
+        if (catalog == null) {
+            synchronized (ContentCatalog.class) {
+                if (current == null) {
+                    current = ContentLoader.load();
+                    StartupTrace.mark("content");
+                }
+                catalog = current;
+            }
+        }
+        return catalog;
+    }
+
+    static void install(ContentCatalog catalog) {
+        current = catalog;
+    }
+
+    public ThreatDef getThreat(ThreatType type) { return threats[type.ordinal()]; }
+    public DefenseDef getDefense(DefenseType type) { return defenses[type.ordinal()]; }
+    public UpgradeDef getUpgrade(WeaponUpgrade upgrade) { return upgrades[upgrade.ordinal()]; }
+    public ItemDef getItem(int id) { return items[id]; }
+    public WeaponDef getWeapon(int id) { return weapons[id]; }
+    public int getItemCount() { return items.length; }
+    public int getWeaponCount() { return weapons.length; }
+    public int getStapleItemId() { return stapleItemId; }
+    public int getStartingWeaponId() { return weaponIdsByKey.get(STARTING_WEAPON); }
+
+    public int getCommonItemId(int pick) { return commonItemIds[pick % commonItemIds.length]; }
+    public int getRareItemId(int pick) { return rareItemIds[pick % rareItemIds.length]; }
+
+    public int[] getShopWeaponIds() { return shopWeaponIds.clone(); }
+
+    public BossScript getBossScript(ThreatType type) { return bossScripts[type.ordinal()]; }
+    public AchievementDef getAchievement(int id) { return achievements[id]; }
+    public int getAchievementCount() { return achievements.length; }
+
+    public int getWeaponId(String key) {
+        Integer id = weaponIdsByKey.get(key);
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown weapon " + key);
+        }
+        return id;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeShort(threats.length);
+        for (ThreatDef threat : threats) {
+            out.writeUTF(threat.getName());
+            out.writeUTF(threat.getDescription());
+            out.writeUTF(threat.getAttackMessage());
+            out.writeInt(threat.getBaseHealth());
+            out.writeInt(threat.getBaseDamage());
+        }
+        out.writeShort(defenses.length);
+        for (DefenseDef defense : defenses) {
+            out.writeUTF(defense.getName());
+            out.writeUTF(defense.getDescription());
+            out.writeInt(defense.getPowerLevel());
+        }
+        out.writeShort(upgrades.length);
+        for (UpgradeDef upgrade : upgrades) {
+            out.writeUTF(upgrade.getName());
+            out.writeUTF(upgrade.getDescription());
+            out.writeInt(upgrade.getBonusDamage());
+        }
+        out.writeShort(items.length);
+        for (int i = 0; i < items.length; i++) {
+            ItemDef item = items[i];
+            out.writeUTF(itemKeys[i]);
+            out.writeUTF(item.getName());
+            out.writeUTF(item.getDescription());
+            out.writeByte(item.getType().ordinal());
+            out.writeInt(item.getPower());
+            out.writeInt(item.getUses());
+            out.writeInt(item.getPrice());
+            out.writeByte((item.isConsumable() ? 1 : 0) | (item.isRare() ? 2 : 0) | (item.isStaple() ? 4 : 0));
+        }
+        out.writeShort(weapons.length);
+        for (int i = 0; i < weapons.length; i++) {
+            WeaponDef weapon = weapons[i];
+            out.writeUTF(weaponKeys[i]);
+            out.writeUTF(weapon.getName());
+            out.writeInt(weapon.getPower());
+            out.writeByte(weapon.getDefenseType().ordinal());
+            out.writeInt(weapon.getDurability());
+            out.writeInt(weapon.getLevel());
+            out.writeBoolean(weapon.isSoldInShop());
+            out.writeShort(weapon.getMoves().size());
+            for (MoveDef move : weapon.getMoves()) {
+                out.writeUTF(move.getName());
+                out.writeUTF(move.getDescription());
+                for (int stat : move.getStats()) {
+                    out.writeInt(stat);
+                }
+            }
+        }
+        for (BossScript script : bossScripts) {
+            out.writeBoolean(script != null);
+            if (script != null) {
+                script.writeTo(out);
+            }
+        }
+        out.writeShort(achievements.length);
+        for (AchievementDef achievement : achievements) {
+            out.writeUTF(achievement.getKey());
+            out.writeUTF(achievement.getName());
+            out.writeUTF(achievement.getDescription());
+            out.writeByte(achievement.getEvent().ordinal());
+            out.writeByte(achievement.getThreat() == null ? 0 : achievement.getThreat().ordinal() + 1);
+            out.writeByte(achievement.getKind().ordinal());
+            out.writeLong(achievement.getThreshold());
+            out.writeInt(achievement.getForbiddenEvents());
+            out.writeInt(achievement.getMaxDamageTaken());
+        }
+    }
+
+    static ContentCatalog readFrom(DataInputStream in) throws IOException {
+        ThreatDef[] threats = new ThreatDef[in.readShort()];
+        for (int i = 0; i < threats.length; i++) {
+            threats[i] = new ThreatDef(in.readUTF(), in.readUTF(), in.readUTF(), in.readInt(), in.readInt());
+        }
+        DefenseDef[] defenses = new DefenseDef[in.readShort()];
+        for (int i = 0; i < defenses.length; i++) {
+            defenses[i] = new DefenseDef(in.readUTF(), in.readUTF(), in.readInt());
+        }
+        UpgradeDef[] upgrades = new UpgradeDef[in.readShort()];
+        for (int i = 0; i < upgrades.length; i++) {
+            upgrades[i] = new UpgradeDef(in.readUTF(), in.readUTF(), in.readInt());
+        }
+        ItemType[] itemTypes = ItemType.values();
+        ItemDef[] items = new ItemDef[in.readShort()];
+        String[] itemKeys = new String[items.length];
+        for (int i = 0; i < items.length; i++) {
+            itemKeys[i] = in.readUTF();
+            String name = in.readUTF();
+            String description = in.readUTF();
+            ItemType type = itemTypes[in.readByte()];
+            int power = in.readInt();
+            int uses = in.readInt();
+            int price = in.readInt();
+            int flags = in.readByte();
+            items[i] = new ItemDef(i, name, description, type, power, uses, price,
+                    (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0);
+        }
+        DefenseType[] defenseTypes = DefenseType.values();
+        WeaponDef[] weapons = new WeaponDef[in.readShort()];
+        String[] weaponKeys = new String[weapons.length];
+        for (int i = 0; i < weapons.length; i++) {
+            weaponKeys[i] = in.readUTF();
+            String name = in.readUTF();
+            int power = in.readInt();
+            DefenseType defenseType = defenseTypes[in.readByte()];
+            int durability = in.readInt();
+            int level = in.readInt();
+            boolean soldInShop = in.readBoolean();
+            List<MoveDef> moves = new ArrayList<>();
+            int moveCount = in.readShort();
+            for (int m = 0; m < moveCount; m++) {
+                String moveName = in.readUTF();
+                String moveDescription = in.readUTF();
+                int[] stats = new int[MoveStat.COUNT];
+                for (int s = 0; s < stats.length; s++) {
+                    stats[s] = in.readInt();
+                }
+                moves.add(new MoveDef(moveName, moveDescription, stats));
+            }
+            weapons[i] = new WeaponDef(i, name, power, defenseType, durability, level, soldInShop, moves);
+        }
+        BossScript[] bossScripts = new BossScript[threats.length];
+        for (int i = 0; i < bossScripts.length; i++) {
+            if (in.readBoolean()) {
+                bossScripts[i] = BossScript.readFrom(in);
+            }
+        }
+        GameEvent[] events = GameEvent.values();
+        ThreatType[] threatTypes = ThreatType.values();
+        AchievementKind[] kinds = AchievementKind.values();
+        AchievementDef[] achievements = new AchievementDef[in.readShort()];
+        for (int i = 0; i < achievements.length; i++) {
+            String key = in.readUTF();
+            String name = in.readUTF();
+            String description = in.readUTF();
+            GameEvent event = events[in.readByte()];
+            int threat = in.readByte();
+            AchievementKind kind = kinds[in.readByte()];
+            achievements[i] = new AchievementDef(i, key, name, description, event,
+                    threat == 0 ? null : threatTypes[threat - 1], kind, in.readLong(), in.readInt(), in.readInt());
+        }
+        return new ContentCatalog(threats, defenses, upgrades, items, itemKeys, weapons, weaponKeys, bossScripts,
+                achievements);
+    }
+}
+
+class ContentException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public ContentException(String message) {
+        super(message);
+    }
+
+    public ContentException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
+
+/**
+ * Parses the {@code *.def} files: {@code [kind KEY]} section headers followed by
+ * {@code field = value} lines, with {@code #} comments. {@code bosses.def} uses
+ * its own grammar, see {@link BossScriptCompiler}.
+ */
+class ContentCompiler {
+    public static final String[] FILES = {"threats.def", "defenses.def", "upgrades.def", "items.def", "weapons.def",
+            "achievements.def", BossScriptCompiler.FILE};
+
+    private final Map<String, Map<String, Map<String, List<String>>>> sections = new HashMap<>();
+    private final BossScriptCompiler bossCompiler = new BossScriptCompiler();
+
+    public void parse(String fileName, InputStream input) throws IOException {
+        if (fileName.equals(BossScriptCompiler.FILE)) {
+            bossCompiler.parse(input);
+            return;
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Map<String, List<String>> section = null;
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            if (line.startsWith("[") && line.endsWith("]")) {
+                String[] header = line.substring(1, line.length() - 1).strip().split("\\s+");
+                if (header.length != 2) {
+                    throw new ContentException(fileName + ":" + lineNumber + ": expected [kind KEY]");
+                }
+                section = new LinkedHashMap<>();
+                Map<String, Map<String, List<String>>> ofKind =
+                        sections.computeIfAbsent(header[0], kind -> new LinkedHashMap<>());
+                if (ofKind.put(header[1], section) != null) {
+                    throw new ContentException(fileName + ":" + lineNumber + ": duplicate " + header[0] + " " + header[1]);
+                }
+                continue;
+            }
+
+            int equals = line.indexOf('=');
+            if (section == null || equals < 0) {
+                throw new ContentException(fileName + ":" + lineNumber + ": expected field = value");
+            }
+            section.computeIfAbsent(line.substring(0, equals).strip(), field -> new ArrayList<>())
+                    .add(line.substring(equals + 1).strip());
+        }
+    }
+
+    public ContentCatalog compile() {
+        ThreatDef[] threats = new ThreatDef[ThreatType.values().length];
+        for (ThreatType type : ThreatType.values()) {
+            Map<String, List<String>> fields = require("threat", type.name());
+            threats[type.ordinal()] = new ThreatDef(text(fields, "name"), text(fields, "description"),
+                    text(fields, "attack"), number(fields, "health"), number(fields, "damage"));
+        }
+
+        DefenseDef[] defenses = new DefenseDef[DefenseType.values().length];
+        for (DefenseType type : DefenseType.values()) {
+            Map<String, List<String>> fields = require("defense", type.name());
+            defenses[type.ordinal()] = new DefenseDef(text(fields, "name"), text(fields, "description"),
+                    number(fields, "power"));
+        }
+
+        UpgradeDef[] upgrades = new UpgradeDef[WeaponUpgrade.values().length];
+        for (WeaponUpgrade upgrade : WeaponUpgrade.values()) {
+            Map<String, List<String>> fields = require("upgrade", upgrade.name());
+            upgrades[upgrade.ordinal()] = new UpgradeDef(text(fields, "name"), text(fields, "description"),
+                    number(fields, "bonus"));
+        }
+
+        Map<String, Map<String, List<String>>> itemSections = sections.getOrDefault("item", Map.of());
+        ItemDef[] items = new ItemDef[itemSections.size()];
+        String[] itemKeys = itemSections.keySet().toArray(new String[0]);
+        for (int i = 0; i < items.length; i++) {
+            Map<String, List<String>> fields = itemSections.get(itemKeys[i]);
+            items[i] = new ItemDef(i, text(fields, "name"), text(fields, "description"),
+                    constant(ItemType.class, "item " + itemKeys[i], fields, "type"), number(fields, "power"), number(fields, "uses"),
+                    number(fields, "price"), flag(fields, "consumable"),
+                    text(fields, "rarity").equals("rare"), flag(fields, "staple"));
+        }
+
+        Map<String, Map<String, List<String>>> weaponSections = sections.getOrDefault("weapon", Map.of());
+        WeaponDef[] weapons = new WeaponDef[weaponSections.size()];
+        String[] weaponKeys = weaponSections.keySet().toArray(new String[0]);
+        for (int i = 0; i < weapons.length; i++) {
+            Map<String, List<String>> fields = weaponSections.get(weaponKeys[i]);
+            List<MoveDef> moves = new ArrayList<>();
+            for (String move : fields.getOrDefault("move", List.of())) {
+                moves.add(parseMove(weaponKeys[i], move));
+            }
+            if (moves.size() > CombatState.MAX_MOVES) {
+                throw new ContentException("weapon " + weaponKeys[i] + " has more than " + CombatState.MAX_MOVES + " moves");
+            }
+            weapons[i] = new WeaponDef(i, text(fields, "name"), number(fields, "power"),
+                    constant(DefenseType.class, "weapon " + weaponKeys[i], fields, "defense"), number(fields, "durability"),
+                    number(fields, "level"), flag(fields, "shop"), moves);
+        }
+
+        Map<String, Map<String, List<String>>> achievementSections = sections.getOrDefault("achievement", Map.of());
+        AchievementDef[] achievements = new AchievementDef[achievementSections.size()];
+        String[] achievementKeys = achievementSections.keySet().toArray(new String[0]);
+        for (int i = 0; i < achievements.length; i++) {
+            achievements[i] = parseAchievement(i, achievementKeys[i], achievementSections.get(achievementKeys[i]));
+        }
+
+        try {
+            return new ContentCatalog(threats, defenses, upgrades, items, itemKeys, weapons, weaponKeys,
+                    bossCompiler.compile(), achievements);
+        } catch (IllegalStateException e) {
+            throw new ContentException(e.getMessage(), e);
+        }
+    }
+
+    private static MoveDef parseMove(String weaponKey, String line) {
+        String[] parts = line.split("\\|");
+        if (parts.length < 2 || parts.length > 3) {
+            throw new ContentException("weapon " + weaponKey + ": move needs 'Name | description | effects'");
+        }
+
+        int[] stats = new int[MoveStat.COUNT];
+        String effects = parts.length == 3 ? parts[2].strip() : "";
+        for (String effect : effects.isEmpty() ? new String[0] : effects.split("\\s+")) {
+            int equals = effect.indexOf('=');
+            if (equals < 0) {
+                throw new ContentException("weapon " + weaponKey + ": effect '" + effect + "' needs key=value");
+            }
+            String key = effect.substring(0, equals);
+            String value = effect.substring(equals + 1);
+            try {
+                MoveStat stat = MoveStat.valueOf(key.toUpperCase());
+                if (stat == MoveStat.VS) {
+                    for (String threat : value.split(",")) {
+                        stats[stat.ordinal()] |= 1 << ThreatType.valueOf(threat).ordinal();
+                    }
+                } else {
+                    stats[stat.ordinal()] = Integer.parseInt(value);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new ContentException("weapon " + weaponKey + ": invalid effect '" + effect + "'", e);
+            }
+        }
+        return new MoveDef(parts[0].strip(), parts[1].strip(), stats);
+    }
+
+    private static AchievementDef parseAchievement(int id, String key, Map<String, List<String>> fields) {
+        String section = "achievement " + key;
+        GameEvent event = constant(GameEvent.class, section, fields, "on");
+        ThreatType threat = fields.containsKey("threat") ? constant(ThreatType.class, section, fields, "threat") : null;
+        AchievementKind kind;
+        long threshold = 0;
+        int forbidden = 0;
+        int maxTaken = Integer.MAX_VALUE;
+        if (fields.containsKey("count")) {
+            kind = AchievementKind.COUNT;
+            threshold = number(fields, "count");
+        } else if (fields.containsKey("total")) {
+            kind = AchievementKind.TOTAL;
+            threshold = number(fields, "total");
+        } else if (fields.containsKey("value")) {
+            kind = AchievementKind.VALUE;
+            threshold = number(fields, "value");
+        } else if (fields.containsKey("without") || fields.containsKey("max-taken")) {
+            kind = AchievementKind.CLEAN;
+            if (fields.containsKey("without")) {
+                for (String forbiddenEvent : text(fields, "without").split(",")) {
+                    forbidden |= 1 << constant(GameEvent.class, section, "without", forbiddenEvent.strip()).ordinal();
+                }
+            }
+            if (fields.containsKey("max-taken")) {
+                maxTaken = number(fields, "max-taken");
+            }
+        } else {
+            throw new ContentException(section + " needs count, total, value, without or max-taken");
+        }
+        return new AchievementDef(id, key, text(fields, "name"), text(fields, "description"), event, threat,
+                kind, threshold, forbidden, maxTaken);
+    }
+
+    private Map<String, List<String>> require(String kind, String key) {
+        Map<String, List<String>> fields = sections.getOrDefault(kind, Map.of()).get(key);
+        if (fields == null) {
+            throw new ContentException("Missing definition for " + kind + " " + key);
+        }
+        return fields;
+    }
+
+    private static String text(Map<String, List<String>> fields, String field) {
+        List<String> values = fields.get(field);
+        if (values == null) {
+            throw new ContentException("Missing field " + field);
+        }
+        return values.get(values.size() - 1);
+    }
+
+    private static int number(Map<String, List<String>> fields, String field) {
+        try {
+            return Integer.parseInt(text(fields, field));
+        } catch (NumberFormatException e) {
+            throw new ContentException("Field " + field + " is not a number", e);
+        }
+    }
+
+    private static <E extends Enum<E>> E constant(Class<E> type, String section, Map<String, List<String>> fields,
+                                                  String field) {
+        return constant(type, section, field, text(fields, field));
+    }
+
+    /** Looks up an enum constant named in a definition, reporting a typo as bad content. */
+    private static <E extends Enum<E>> E constant(Class<E> type, String section, String field, String value) {
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw new ContentException(section + ": unknown " + field + " '" + value + "'", e);
+        }
+    }
+
+    private static boolean flag(Map<String, List<String>> fields, String field) {
+        List<String> values = fields.get(field);
+        return values != null && Boolean.parseBoolean(values.get(values.size() - 1));
+    }
+}
+
+/**
+ * Finds the definition files, reuses the binary cache when their fingerprint
+ * matches and keeps a watcher thread that recompiles on change.
+ *
+ * <p>Definitions are read from {@code -Dzb.content}, then {@code ./content},
+ * then {@code /content} on the classpath.
+ */
+class ContentLoader {
+    private static final int CACHE_MAGIC = 0x5A42_4343;
+    private static final int CACHE_VERSION = 4;
+
+    private static Thread watcher;
+
+    public static ContentCatalog load() {
+        Path directory = contentDirectory();
+        if (directory == null) {
+            return compileFromClasspath();
+        }
+
+        ContentCatalog catalog = loadDirectory(directory);
+        if (!Boolean.getBoolean("zb.content.noWatch")) {
+            startWatcher(directory);
+        }
+        return catalog;
+    }
+
+    public static ContentCatalog loadDirectory(Path directory) {
+        long fingerprint;
+        try {
+            fingerprint = fingerprint(directory);
+        } catch (IOException e) {
+            throw new ContentException("Cannot read content in " + directory, e);
+        }
+
+        Path cacheFile = GameFiles.home().resolve("content.cache");
+        ContentCatalog cached = readCache(cacheFile, fingerprint);
+        if (cached != null) {
+            return cached;
+        }
+
+        ContentCompiler compiler = new ContentCompiler();
+        for (String file : ContentCompiler.FILES) {
+            try (InputStream input = Files.newInputStream(directory.resolve(file))) {
+                compiler.parse(file, input);
+            } catch (IOException e) {
+                throw new ContentException("Cannot read " + directory.resolve(file), e);
+            }
+        }
+        ContentCatalog catalog = compiler.compile();
+        writeCache(cacheFile, fingerprint, catalog);
+        return catalog;
+    }
+
+    private static Path contentDirectory() {
+        String configured = System.getProperty("zb.content");
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        Path local = Paths.get("content");
+        return Files.isDirectory(local) ? local : null;
+    }
+
+    private static ContentCatalog compileFromClasspath() {
+        ContentCompiler compiler = new ContentCompiler();
+        for (String file : ContentCompiler.FILES) {
+            try (InputStream input = ContentLoader.class.getResourceAsStream("/content/" + file)) {
+                if (input == null) {
+                    throw new ContentException("Content definitions not found; run from the project directory or set -Dzb.content");
+                }
+                compiler.parse(file, input);
+            } catch (IOException e) {
+                throw new ContentException("Cannot read bundled " + file, e);
+            }
+        }
+        return compiler.compile();
+    }
+
+    private static long fingerprint(Path directory) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(directory.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+        for (String file : ContentCompiler.FILES) {
+            Path path = directory.resolve(file);
+            crc.update(file.getBytes(StandardCharsets.UTF_8));
+            long size = Files.size(path);
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            for (int shift = 0; shift < 64; shift += 8) {
+                crc.update((int) (size >>> shift));
+                crc.update((int) (modified >>> shift));
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static ContentCatalog readCache(Path cacheFile, long fingerprint) {
+        if (!Files.exists(cacheFile)) return null;
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(cacheFile)))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION || in.readLong() != fingerprint) {
+                return null;
+            }
+            return ContentCatalog.readFrom(in);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void writeCache(Path cacheFile, long fingerprint, ContentCatalog catalog) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(CACHE_MAGIC);
+                out.writeInt(CACHE_VERSION);
+                out.writeLong(fingerprint);
+                catalog.writeTo(out);
+            }
+            Files.createDirectories(cacheFile.getParent());
+            Path temp = Files.createTempFile(cacheFile.getParent(), "content", ".tmp");
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not write content cache: " + e.getMessage());
+        }
+    }
+
+    /** Registers the watch on the watcher thread itself so it stays off the startup path. */
+    private static synchronized void startWatcher(Path directory) {
+        if (watcher != null) return;
+
+        watcher = new Thread(() -> {
+            WatchService watchService;
+            try {
+                watchService = directory.getFileSystem().newWatchService();
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (IOException e) {
+                System.err.println("Content hot reload disabled: " + e.getMessage());
+                return;
+            }
+            watch(directory, watchService);
+        }, "content-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private static void watch(Path directory, WatchService watchService) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Thread.sleep(200);
+                key.pollEvents();
+                key.reset();
+                try {
+                    ContentCatalog.install(loadDirectory(directory));
+                } catch (ContentException e) {
+                    System.err.println("Content reload failed, keeping previous content: " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
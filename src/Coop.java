@@ -0,0 +1,446 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+class DesyncException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public DesyncException(int step) {
+        super("State hashes diverged at step " + step);
+    }
+}
+
+/**
+ * Lockstep transport between co-op peers. Every peer submits one input per
+ * step (or {@link #NO_INPUT}) and gets back everyone's input for that step in
+ * player order. Only inputs cross the wire; each peer simulates the whole game.
+ * Every {@link #HASH_INTERVAL} steps peers also send a hash of their state so
+ * the host can stop the match as soon as they diverge.
+ */
+abstract class LockstepLink implements AutoCloseable {
+    public static final int NO_INPUT = Integer.MIN_VALUE;
+    public static final int HASH_INTERVAL = 8;
+
+    protected long seed;
+    protected int playerCount;
+    protected int localIndex;
+
+    public abstract int[] exchange(int step, int input, int stateHash) throws IOException;
+
+    public abstract void close() throws IOException;
+
+    public static boolean isCheckpoint(int step) {
+        return step % HASH_INTERVAL == 0;
+    }
+
+    public long getSeed() { return seed; }
+    public int getPlayerCount() { return playerCount; }
+    public int getLocalIndex() { return localIndex; }
+
+    protected static Socket configure(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        return socket;
+    }
+}
+
+/** Player 0: accepts the other peers, picks the seed and relays each step. */
+class LockstepHost extends LockstepLink {
+    private final ServerSocket serverSocket;
+    private final Socket[] sockets;
+    private final DataInputStream[] inputs;
+    private final DataOutputStream[] outputs;
+
+    public LockstepHost(int port, int playerCount, long seed, PrintStream out) throws IOException {
+        this.seed = seed;
+        this.playerCount = playerCount;
+        this.localIndex = 0;
+        this.serverSocket = new ServerSocket(port, playerCount, InetAddress.getLoopbackAddress());
+        this.sockets = new Socket[playerCount];
+        this.inputs = new DataInputStream[playerCount];
+        this.outputs = new DataOutputStream[playerCount];
+
+        for (int i = 1; i < playerCount; i++) {
+            out.printf("Waiting for player %d/%d on port %d...%n", i + 1, playerCount, serverSocket.getLocalPort());
+            sockets[i] = configure(serverSocket.accept());
+            inputs[i] = new DataInputStream(new BufferedInputStream(sockets[i].getInputStream()));
+            outputs[i] = new DataOutputStream(new BufferedOutputStream(sockets[i].getOutputStream()));
+            outputs[i].writeLong(seed);
+            outputs[i].writeInt(playerCount);
+            outputs[i].writeInt(i);
+            outputs[i].flush();
+        }
+        serverSocket.close();
+    }
+
+    public int[] exchange(int step, int input, int stateHash) throws IOException {
+        int[] values = new int[playerCount];
+        boolean desync = false;
+        values[0] = input;
+
+        for (int i = 1; i < playerCount; i++) {
+            int peerStep = inputs[i].readInt();
+            values[i] = inputs[i].readInt();
+            int peerHash = inputs[i].readInt();
+            if (peerStep != step || (isCheckpoint(step) && peerHash != stateHash)) {
+                desync = true;
+            }
+        }
+
+        for (int i = 1; i < playerCount; i++) {
+            outputs[i].writeInt(step);
+            outputs[i].writeBoolean(desync);
+            for (int value : values) {
+                outputs[i].writeInt(value);
+            }
+            outputs[i].flush();
+        }
+
+        if (desync) {
+            throw new DesyncException(step);
+        }
+        return values;
+    }
+
+    public void close() throws IOException {
+        serverSocket.close();
+        for (int i = 1; i < playerCount; i++) {
+            if (sockets[i] != null) sockets[i].close();
+        }
+    }
+}
+
+class LockstepClient extends LockstepLink {
+    private final Socket socket;
+    private final DataInputStream input;
+    private final DataOutputStream output;
+
+    public LockstepClient(int port) throws IOException {
+        this.socket = configure(new Socket(InetAddress.getLoopbackAddress(), port));
+        this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.seed = input.readLong();
+        this.playerCount = input.readInt();
+        this.localIndex = input.readInt();
+    }
+
+    public int[] exchange(int step, int value, int stateHash) throws IOException {
+        output.writeInt(step);
+        output.writeInt(value);
+        output.writeInt(isCheckpoint(step) ? stateHash : 0);
+        output.flush();
+
+        int hostStep = input.readInt();
+        boolean desync = input.readBoolean();
+        int[] values = new int[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            values[i] = input.readInt();
+        }
+        if (desync || hostStep != step) {
+            throw new DesyncException(step);
+        }
+        return values;
+    }
+
+    public void close() throws IOException {
+        socket.close();
+    }
+}
+
+/**
+ * Two to four players against a chain of shared bosses. Every peer runs the
+ * same simulation from the same seed; the only thing exchanged is what each
+ * player chose, one lockstep step at a time.
+ */
+class CoopGame {
+    private static final int ACTION_ATTACK = 1;
+    private static final int ACTION_ITEM = 2;
+    private static final int ACTION_BLOCK = 3;
+
+    private final LockstepLink link;
+    private final Terminal terminal;
+    private final PrintStream out;
+    private final Random random;
+    private final List<Player> players = new ArrayList<>();
+    private final Shop shop;
+    private final BossState bossState = new BossState();
+    private Threat boss;
+    private int step;
+    private int round;
+
+    public CoopGame(LockstepLink link, Terminal terminal) {
+        this.link = link;
+        this.terminal = terminal;
+        this.out = terminal.out();
+        this.random = new Random(link.getSeed());
+        this.shop = new Shop(random);
+        for (int i = 0; i < link.getPlayerCount(); i++) {
+            players.add(new Player(terminal));
+        }
+    }
+
+    public void start() {
+        out.printf("%sCo-op session: %d players, you are player %d (seed %d)%s%n", ConsoleColors.CYAN,
+                players.size(), link.getLocalIndex() + 1, link.getSeed(), ConsoleColors.RESET);
+        try {
+            while (anyAlive()) {
+                round++;
+                fight(createBoss());
+                if (!anyAlive()) break;
+                reward();
+                visitShop();
+            }
+            out.println(ConsoleColors.RED + "The party has been overrun after " + (round - 1) + " bosses." + ConsoleColors.RESET);
+        } catch (UncheckedIOException e) {
+            reportLinkFailure(e.getCause());
+        } catch (IOException e) {
+            reportLinkFailure(e);
+        } catch (NoSuchElementException e) {
+            out.println("Input closed, ending session.");
+        } finally {
+            try {
+                link.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void reportLinkFailure(IOException e) {
+        if (e instanceof DesyncException) {
+            out.println(ConsoleColors.RED + "Desync detected: " + e.getMessage() + ". Ending session." + ConsoleColors.RESET);
+        } else {
+            out.println("Connection to the other players was lost.");
+        }
+    }
+
+    private Threat createBoss() {
+        List<ThreatType> types = EncounterPlan.BOSS_TYPES;
+        Threat template = ThreatFactory.createBossThreat(partyLevel(), types.get(random.nextInt(types.size())));
+        return new Threat(template.getName(), template.getHealth() * players.size(), template.getDamage(),
+                template.getExperienceValue(), template.getThreatType());
+    }
+
+    private void fight(Threat threat) throws IOException {
+        boss = threat;
+        BossScript script = ContentCatalog.current().getBossScript(threat.getThreatType());
+        if (script != null) {
+            bossState.begin(script);
+        }
+        out.println("\n" + ConsoleColors.PURPLE + "🔥 CO-OP BOSS " + round + ": " + threat.getName() + " 🔥" + ConsoleColors.RESET);
+
+        while (threat.getHealth() > 0 && anyAlive()) {
+            showParty();
+            int[] actions = exchange(readLocalAction());
+            boolean[] blocking = new boolean[players.size()];
+            for (int i = 0; i < players.size(); i++) {
+                if (players.get(i).getHealth() > 0 && threat.getHealth() > 0) {
+                    blocking[i] = applyAction(i, actions[i], threat);
+                }
+            }
+            if (threat.getHealth() > 0) {
+                bossTurn(threat, blocking);
+            }
+        }
+        bossState.end();
+    }
+
+    private int readLocalAction() {
+        Player player = players.get(link.getLocalIndex());
+        if (player.getHealth() <= 0) {
+            out.println("You are down. Waiting for the rest of the party...");
+            return LockstepLink.NO_INPUT;
+        }
+
+        out.println("1. Attack  2. Use Item  3. Block");
+        int action = readLocal(Prompt.COMBAT_ACTION, 1, 3);
+        if (action == ACTION_ITEM) {
+            if (player.getInventory().isEmpty() || bossState.itemsLocked()) {
+                out.println(bossState.itemsLocked() ? "Your items are encrypted!" : "No items in inventory!");
+                return ACTION_BLOCK * 1000;
+            }
+            player.showInventory();
+            int item = readLocal(Prompt.ITEM_CHOICE, 0, player.getInventory().size());
+            return item == 0 ? ACTION_BLOCK * 1000 : ACTION_ITEM * 1000 + item;
+        }
+        return action * 1000;
+    }
+
+    /** Applies one player's encoded action; returns whether they are blocking. */
+    private boolean applyAction(int index, int encoded, Threat threat) {
+        if (encoded == LockstepLink.NO_INPUT) return false;
+
+        Player player = players.get(index);
+        int action = encoded / 1000;
+        int argument = encoded % 1000;
+        String name = "Player " + (index + 1);
+
+        if (action == ACTION_ATTACK) {
+            Weapon weapon = player.getCurrentWeapon();
+            int damage = bossState.outgoingDamage(weapon.isBroken() ? weapon.getTotalPower() / 2 : weapon.getTotalPower());
+            weapon.reduceDurability();
+            threat.takeDamage(damage);
+            out.printf("%s deals %d damage with %s!%n", name, damage, weapon.getName());
+        } else if (action == ACTION_ITEM && argument >= 1 && argument <= player.getInventory().size()) {
+            out.printf("%s uses an item.%n", name);
+            player.useItem(player.getInventory().get(argument - 1));
+        } else {
+            out.printf("%s braces for impact.%n", name);
+            return true;
+        }
+        return false;
+    }
+
+    private void bossTurn(Threat threat, boolean[] blocking) {
+        int target = pickLivingPlayer();
+        Player player = players.get(target);
+        int raw = blocking[target] ? threat.getDamage() / 2 : threat.getDamage();
+        int damage = bossState.incomingDamage(Math.max(0, raw - player.getBaseDefense()));
+        player.takeDamage(damage);
+        out.printf("%s %s! Player %d takes %d damage.%n",
+                threat.getName(), threat.getThreatType().getAttackMessage(), target + 1, damage);
+
+        int events = bossState.advance(threat.getHealth(), threat.getMaxHealth());
+        if ((events & BossState.PHASE_CHANGED) != 0) {
+            out.println(ConsoleColors.PURPLE + "The boss shifts tactics! Phase: " + bossState.getPhaseName() + ConsoleColors.RESET);
+        }
+        if ((events & BossState.ENRAGED) != 0) {
+            out.println(ConsoleColors.RED + "The boss is enraged!" + ConsoleColors.RESET);
+        }
+    }
+
+    private void reward() {
+        int credits = random.nextInt(100) + 50;
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (player.getHealth() <= 0) {
+                player.heal(player.getMaxHealth() / 4 - player.getHealth());
+                out.printf("Player %d is back on their feet with %d HP.%n", i + 1, player.getHealth());
+                continue;
+            }
+            player.addMoney(credits);
+            player.addExperience(boss.getExperienceValue());
+            while (player.shouldLevelUp()) {
+                player.levelUp();
+            }
+        }
+        boss = null;
+    }
+
+    /** One shared shop visit; players shop in turn order, each step in lockstep. */
+    private void visitShop() throws IOException {
+        out.println("\nA traveling merchant appears for the whole party!");
+        shop.restock(ItemFactory.getShopItems(partyLevel(), random));
+        for (int i = 0; i < players.size(); i++) {
+            out.printf("%n--- Player %d is shopping ---%n", i + 1);
+            Terminal shopper = new Terminal(new LockstepInput(i), out, false);
+            shop.enterShop(players.get(i), shopper);
+        }
+    }
+
+    private int[] exchange(int localInput) throws IOException {
+        int[] inputs = link.exchange(step, localInput, stateHash());
+        step++;
+        return inputs;
+    }
+
+    private int readLocal(Prompt prompt, int min, int max) {
+        while (true) {
+            try {
+                int input = terminal.nextInt(prompt);
+                if (input >= min && input <= max) {
+                    return input;
+                }
+                out.printf("Please enter a number between %d and %d: ", min, max);
+            } catch (InputMismatchException e) {
+                out.print("Please enter a valid number: ");
+                terminal.skipLine();
+            }
+        }
+    }
+
+    private int pickLivingPlayer() {
+        List<Integer> living = new ArrayList<>();
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i).getHealth() > 0) living.add(i);
+        }
+        return living.get(random.nextInt(living.size()));
+    }
+
+    private boolean anyAlive() {
+        for (Player player : players) {
+            if (player.getHealth() > 0) return true;
+        }
+        return false;
+    }
+
+    private int partyLevel() {
+        int total = 0;
+        for (Player player : players) {
+            total += player.getLevel();
+        }
+        return total / players.size();
+    }
+
+    private void showParty() {
+        out.printf("%n%s HP: %d/%d%n", boss.getName(), boss.getHealth(), boss.getMaxHealth());
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            out.printf("%s Player %d: %d/%d HP, %s (%d DMG)%n", i == link.getLocalIndex() ? ">" : " ",
+                    i + 1, player.getHealth(), player.getMaxHealth(),
+                    player.getCurrentWeapon().getName(), player.getCurrentWeapon().getTotalPower());
+        }
+    }
+
+    /** Hash of everything the simulation depends on, compared at checkpoints. */
+    private int stateHash() {
+        int hash = step;
+        for (Player player : players) {
+            Weapon weapon = player.getCurrentWeapon();
+            hash = 31 * hash + player.getHealth();
+            hash = 31 * hash + player.getMaxHealth();
+            hash = 31 * hash + player.getMoney();
+            hash = 31 * hash + player.getLevel();
+            hash = 31 * hash + player.getExperience();
+            hash = 31 * hash + weapon.getWeaponId();
+            hash = 31 * hash + weapon.getTotalPower();
+            hash = 31 * hash + weapon.getDurability();
+            hash = 31 * hash + player.getInventory().size();
+        }
+        return 31 * hash + (boss == null ? 0 : boss.getHealth());
+    }
+
+    /** Shop input for one player: read locally by its owner, seen by everyone. */
+    private class LockstepInput implements GameInput {
+        private final int index;
+
+        LockstepInput(int index) {
+            this.index = index;
+        }
+
+        public int nextInt(Prompt prompt) {
+            int local = LockstepLink.NO_INPUT;
+            if (index == link.getLocalIndex()) {
+                local = readLocal(prompt, 0, Integer.MAX_VALUE);
+            }
+            try {
+                return exchange(local)[index];
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public void skipLine() {
+        }
+    }
+}
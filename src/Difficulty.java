@@ -0,0 +1,88 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The coefficients that shape how hard a run gets as the player levels. The
+ * defaults are the values the game has always shipped with; the tuner searches
+ * around them.
+ */
+final class Difficulty {
+    public static final String[] NAMES = {
+            "threatScaling", "bossHealthMultiplier", "bossHealthScaling",
+            "bossDamageMultiplier", "bossDamageScaling", "xpGrowth", "healMin", "healRange"
+    };
+    public static final double[] MIN = {0.02, 1.0, 0.05, 1.0, 0.05, 1.05, 0, 5};
+    public static final double[] MAX = {0.30, 4.0, 0.50, 3.0, 0.40, 1.60, 30, 80};
+
+    public static final Difficulty DEFAULT = new Difficulty(new double[] {0.1, 2, 0.2, 1.5, 0.15, 1.2, 5, 35});
+
+    private final double[] values;
+
+    public Difficulty(double[] values) {
+        if (values.length != NAMES.length) {
+            throw new IllegalArgumentException("Expected " + NAMES.length + " coefficients");
+        }
+        this.values = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            // Rounded so nearby candidates share cache entries and output stays readable.
+            double clamped = Math.max(MIN[i], Math.min(MAX[i], values[i]));
+            this.values[i] = i >= 6 ? Math.round(clamped) : Math.round(clamped * 1000) / 1000.0;
+        }
+    }
+
+    /** Parses {@code name=value,...} overrides on top of the defaults, e.g. {@code xpGrowth=1.3,healMin=10}. */
+    public static Difficulty parse(String spec) {
+        double[] values = DEFAULT.toArray();
+        for (String assignment : spec.split(",")) {
+            if (assignment.isBlank()) continue;
+            String[] parts = assignment.split("=");
+            int index = Arrays.asList(NAMES).indexOf(parts[0].trim());
+            if (index < 0 || parts.length != 2) {
+                throw new IllegalArgumentException("Unknown difficulty setting " + assignment);
+            }
+            values[index] = Double.parseDouble(parts[1].trim());
+        }
+        return new Difficulty(values);
+    }
+
+    public int scaleThreat(int base, int playerLevel) {
+        return (int)(base * (1 + values[0] * playerLevel));
+    }
+
+    public int scaleBossHealth(int base, int playerLevel) {
+        return (int)(base * values[1] * (1 + values[2] * playerLevel));
+    }
+
+    public int scaleBossDamage(int base, int playerLevel) {
+        return (int)(base * values[3] * (1 + values[4] * playerLevel));
+    }
+
+    public int nextExperienceThreshold(int current) {
+        return (int)(current * values[5]);
+    }
+
+    public int rollHeal(Random random) {
+        return random.nextInt((int) values[7]) + (int) values[6];
+    }
+
+    public double[] toArray() {
+        return values.clone();
+    }
+
+    public boolean equals(Object other) {
+        return other instanceof Difficulty && Arrays.equals(values, ((Difficulty) other).values);
+    }
+
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < NAMES.length; i++) {
+            text.append(NAMES[i]).append(" = ");
+            text.append(i >= 6 ? String.valueOf((int) values[i]) : String.valueOf(values[i])).append('\n');
+        }
+        return text.toString();
+    }
+}
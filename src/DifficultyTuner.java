@@ -0,0 +1,215 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Survival curve of one difficulty candidate: the fraction of runs that
+ * cleared each checkpoint encounter.
+ */
+class DifficultyEvaluation {
+    private final Difficulty difficulty;
+    private final double[] survival;
+    private final double loss;
+
+    public DifficultyEvaluation(Difficulty difficulty, double[] survival, double[] target) {
+        this.difficulty = difficulty;
+        this.survival = survival;
+        double sum = 0;
+        for (int i = 0; i < target.length; i++) {
+            double error = survival[i] - target[i];
+            sum += error * error;
+        }
+        this.loss = sum;
+    }
+
+    public Difficulty getDifficulty() { return difficulty; }
+    public double[] getSurvival() { return survival.clone(); }
+    public double getLoss() { return loss; }
+}
+
+/**
+ * Searches the difficulty coefficients for a target survival curve using
+ * headless bot runs.
+ *
+ * <p>Every candidate is played on the same seeds (common random numbers), so
+ * differences between candidates come from the coefficients rather than from
+ * luck, and far fewer runs are needed to rank them. Whole evaluations are
+ * cached by coefficient vector, and the runs of all candidates in a round are
+ * spread over one thread pool.
+ *
+ * <pre>
+ * java DifficultyTuner [--runs 200] [--rounds 30] [--policy BALANCED]
+ *                      [--target 5:0.95,10:0.8,20:0.5,30:0.25] [--seed 1]
+ * </pre>
+ */
+class DifficultyTuner {
+    private final int[] checkpoints;
+    private final double[] target;
+    private final long[] seeds;
+    private final Policy policy;
+    private final ExecutorService pool;
+    private final Map<Difficulty, DifficultyEvaluation> cache = new ConcurrentHashMap<>();
+    private int simulatedRuns;
+
+    public DifficultyTuner(int[] checkpoints, double[] target, int runs, long baseSeed, Policy policy, ExecutorService pool) {
+        this.checkpoints = checkpoints;
+        this.target = target;
+        this.policy = policy;
+        this.pool = pool;
+        this.seeds = new long[runs];
+        Random seedSource = new Random(baseSeed);
+        for (int i = 0; i < runs; i++) {
+            seeds[i] = seedSource.nextLong();
+        }
+    }
+
+    /** Evaluates all candidates together, reusing cached results. */
+    public List<DifficultyEvaluation> evaluate(List<Difficulty> candidates) throws InterruptedException {
+        List<Difficulty> pending = new ArrayList<>();
+        for (Difficulty candidate : candidates) {
+            if (!cache.containsKey(candidate) && !pending.contains(candidate)) {
+                pending.add(candidate);
+            }
+        }
+
+        int cap = checkpoints[checkpoints.length - 1];
+        List<List<Future<HeadlessRun>>> futures = new ArrayList<>();
+        for (Difficulty candidate : pending) {
+            List<Future<HeadlessRun>> runs = new ArrayList<>(seeds.length);
+            for (long seed : seeds) {
+                runs.add(pool.submit(() -> HeadlessRun.play(seed, candidate, policy, cap)));
+            }
+            futures.add(runs);
+        }
+
+        for (int c = 0; c < pending.size(); c++) {
+            double[] survival = new double[checkpoints.length];
+            for (Future<HeadlessRun> future : futures.get(c)) {
+                int survived = join(future).getEncountersSurvived();
+                for (int i = 0; i < checkpoints.length; i++) {
+                    if (survived >= checkpoints[i]) survival[i]++;
+                }
+            }
+            for (int i = 0; i < survival.length; i++) {
+                survival[i] /= seeds.length;
+            }
+            cache.put(pending.get(c), new DifficultyEvaluation(pending.get(c), survival, target));
+            simulatedRuns += seeds.length;
+        }
+
+        List<DifficultyEvaluation> results = new ArrayList<>();
+        for (Difficulty candidate : candidates) {
+            results.add(cache.get(candidate));
+        }
+        return results;
+    }
+
+    /**
+     * (1+lambda) local search: each round perturbs the best vector with
+     * {@code lambda} neighbours, keeps the best and narrows the step when
+     * nothing improves.
+     */
+    public DifficultyEvaluation tune(Difficulty start, int rounds, int lambda, Random random, PrintStream log)
+            throws InterruptedException {
+        DifficultyEvaluation best = evaluate(List.of(start)).get(0);
+        double step = 0.25;
+        log.printf("start     loss %.4f  %s%n", best.getLoss(), describe(best));
+
+        for (int round = 1; round <= rounds && step > 0.01; round++) {
+            List<Difficulty> neighbours = new ArrayList<>();
+            for (int i = 0; i < lambda; i++) {
+                neighbours.add(perturb(best.getDifficulty(), step, random));
+            }
+
+            DifficultyEvaluation roundBest = best;
+            for (DifficultyEvaluation evaluation : evaluate(neighbours)) {
+                if (evaluation.getLoss() < roundBest.getLoss()) {
+                    roundBest = evaluation;
+                }
+            }
+
+            if (roundBest == best) {
+                step *= 0.7;
+            } else {
+                best = roundBest;
+            }
+            log.printf("round %3d loss %.4f  %s  step %.3f  runs %d  cached %d%n",
+                    round, best.getLoss(), describe(best), step, simulatedRuns, cache.size());
+        }
+        return best;
+    }
+
+    private static Difficulty perturb(Difficulty base, double step, Random random) {
+        double[] values = base.toArray();
+        for (int i = 0; i < values.length; i++) {
+            if (random.nextInt(3) == 0) continue;
+            double span = Difficulty.MAX[i] - Difficulty.MIN[i];
+            values[i] += random.nextGaussian() * step * span;
+        }
+        return new Difficulty(values);
+    }
+
+    private String describe(DifficultyEvaluation evaluation) {
+        StringBuilder text = new StringBuilder();
+        double[] survival = evaluation.getSurvival();
+        for (int i = 0; i < checkpoints.length; i++) {
+            text.append(String.format("%d:%.2f/%.2f ", checkpoints[i], survival[i], target[i]));
+        }
+        return text.toString().trim();
+    }
+
+    private static HeadlessRun join(Future<HeadlessRun> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.setProperty("zb.content.noWatch", "true");
+
+        int runs = 200;
+        int rounds = 30;
+        long seed = 1;
+        Policy policy = Policy.BALANCED;
+        String targetSpec = "5:0.95,10:0.8,20:0.5,30:0.25";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--runs" -> runs = Integer.parseInt(args[i + 1]);
+                case "--rounds" -> rounds = Integer.parseInt(args[i + 1]);
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                case "--policy" -> policy = Policy.valueOf(args[i + 1]);
+                case "--target" -> targetSpec = args[i + 1];
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        String[] points = targetSpec.split(",");
+        int[] checkpoints = new int[points.length];
+        double[] target = new double[points.length];
+        for (int i = 0; i < points.length; i++) {
+            String[] parts = points[i].split(":");
+            checkpoints[i] = Integer.parseInt(parts[0].trim());
+            target[i] = Double.parseDouble(parts[1].trim());
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            DifficultyTuner tuner = new DifficultyTuner(checkpoints, target, runs, seed, policy, pool);
+            DifficultyEvaluation best = tuner.tune(Difficulty.DEFAULT, rounds, Math.max(4, threads), new Random(seed), System.out);
+            System.out.println("\nBest coefficients (loss " + String.format("%.4f", best.getLoss()) + "):");
+            System.out.print(best.getDifficulty());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+class ItemDraw {
+    private final double rareRoll;
+    private final int pick;
+
+    public ItemDraw(double rareRoll, int pick) {
+        this.rareRoll = rareRoll;
+        this.pick = pick;
+    }
+
+    public static ItemDraw roll(Random random) {
+        return new ItemDraw(random.nextDouble(), random.nextInt(Integer.MAX_VALUE));
+    }
+
+    public Item resolve(int playerLevel) {
+        return ItemFactory.createItem(playerLevel, rareRoll, pick);
+    }
+}
+
+/**
+ * Everything random about one encounter, rolled ahead of time. Values that
+ * scale with the player (threat stats, rare item odds) are kept as raw rolls
+ * and resolved against the player's level when the encounter is played.
+ */
+class EncounterPlan {
+    /** The threats that have a boss form and script. */
+    static final List<ThreatType> BOSS_TYPES = List.of(ThreatType.ZERO_DAY, ThreatType.RANSOMWARE, ThreatType.ROOTKIT);
+
+    private final int index;
+    private final boolean boss;
+    private final ThreatType threatType;
+    private final int creditsFound;
+    private final ItemDraw drop;
+    private final int relicIndex;
+    private final WeaponUpgrade[] upgradeChoices;
+    private final ItemDraw[] shopStock;
+
+    private EncounterPlan(int index, boolean boss, ThreatType threatType, int creditsFound, ItemDraw drop,
+                          int relicIndex, WeaponUpgrade[] upgradeChoices, ItemDraw[] shopStock) {
+        this.index = index;
+        this.boss = boss;
+        this.threatType = threatType;
+        this.creditsFound = creditsFound;
+        this.drop = drop;
+        this.relicIndex = relicIndex;
+        this.upgradeChoices = upgradeChoices;
+        this.shopStock = shopStock;
+    }
+
+    public static EncounterPlan generate(int index, Random random) {
+        return generate(index, index % 10 == 0, random);
+    }
+
+    public static EncounterPlan generate(int index, boolean boss, Random random) {
+        ThreatType threatType;
+        int creditsFound;
+        ItemDraw drop = null;
+        int relicIndex = -1;
+        WeaponUpgrade[] upgradeChoices = new WeaponUpgrade[0];
+
+        if (boss) {
+            threatType = BOSS_TYPES.get(random.nextInt(BOSS_TYPES.size()));
+            creditsFound = 50 + random.nextInt(100);
+            relicIndex = random.nextInt(Game.RELICS.length);
+            WeaponUpgrade[] upgrades = WeaponUpgrade.values();
+            upgradeChoices = new WeaponUpgrade[3];
+            for (int i = 0; i < upgradeChoices.length; i++) {
+                upgradeChoices[i] = upgrades[random.nextInt(upgrades.length)];
+            }
+        } else {
+            ThreatType[] types = ThreatType.values();
+            threatType = types[random.nextInt(types.length)];
+            creditsFound = 10 + random.nextInt(60);
+            if (random.nextInt(100) < 25) {
+                drop = ItemDraw.roll(random);
+            }
+        }
+
+        // Merchants carry a little more as the run goes on.
+        ItemDraw[] shopStock = new ItemDraw[random.nextInt(3) + 2 + Math.min(3, index / 10)];
+        for (int i = 0; i < shopStock.length; i++) {
+            shopStock[i] = ItemDraw.roll(random);
+        }
+
+        return new EncounterPlan(index, boss, threatType, creditsFound, drop, relicIndex, upgradeChoices, shopStock);
+    }
+
+    public int getIndex() { return index; }
+    public boolean isBoss() { return boss; }
+    public ThreatType getThreatType() { return threatType; }
+    public int getCreditsFound() { return creditsFound; }
+    public ItemDraw getDrop() { return drop; }
+    public int getRelicIndex() { return relicIndex; }
+    public WeaponUpgrade[] getUpgradeChoices() { return upgradeChoices.clone(); }
+    public ItemDraw[] getShopStock() { return shopStock.clone(); }
+}
+
+/**
+ * Bounded lookahead of {@link EncounterPlan}s. Plans are generated in order from
+ * a seed on a background thread, so the sequence is identical whether the
+ * producer runs ahead or not, and generation never sits between two fights.
+ * If the producer fails, the plans it made are still handed out, after which
+ * {@link #next()} and {@link #upcoming(int)} rethrow the failure.
+ */
+class EncounterPipeline implements AutoCloseable {
+    private static final long SEED_SCRAMBLE = 0x9E3779B97F4A7C15L;
+
+    private final Random random;
+    private final int lookahead;
+    private final ArrayDeque<EncounterPlan> queue;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Thread producer;
+    private int nextIndex = 1;
+    private boolean closed;
+    private Throwable failure;
+
+    private EncounterPipeline(long seed, int lookahead, boolean background) {
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("Lookahead must be at least 1");
+        }
+        this.random = new Random(seed * SEED_SCRAMBLE + 1);
+        this.lookahead = lookahead;
+        this.queue = new ArrayDeque<>(lookahead);
+        if (background) {
+            this.producer = new Thread(this::produce, "encounter-prefetch");
+            this.producer.setDaemon(true);
+            this.producer.start();
+        } else {
+            this.producer = null;
+        }
+    }
+
+    public static EncounterPipeline background(long seed, int lookahead) {
+        return new EncounterPipeline(seed, lookahead, true);
+    }
+
+    public static EncounterPipeline inline(long seed, int lookahead) {
+        return new EncounterPipeline(seed, lookahead, false);
+    }
+
+    public EncounterPlan next() {
+        lock.lock();
+        try {
+            awaitAvailable(1);
+            EncounterPlan plan = queue.poll();
+            notFull.signal();
+            return plan;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<EncounterPlan> upcoming(int count) {
+        lock.lock();
+        try {
+            awaitAvailable(Math.min(count, lookahead));
+            List<EncounterPlan> plans = new ArrayList<>(count);
+            for (EncounterPlan plan : queue) {
+                if (plans.size() == count) break;
+                plans.add(plan);
+            }
+            return plans;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitAvailable(int count) {
+        if (producer == null) {
+            while (queue.size() < count) {
+                queue.add(EncounterPlan.generate(nextIndex++, random));
+            }
+            return;
+        }
+
+        boolean interrupted = false;
+        while (queue.size() < count) {
+            if (failure != null) {
+                throw new IllegalStateException("Encounter generation failed", failure);
+            }
+            try {
+                notEmpty.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void produce() {
+        while (true) {
+            lock.lock();
+            try {
+                while (queue.size() >= lookahead && !closed) {
+                    notFull.awaitUninterruptibly();
+                }
+                if (closed) return;
+            } finally {
+                lock.unlock();
+            }
+
+            EncounterPlan plan = null;
+            Throwable error = null;
+            try {
+                plan = EncounterPlan.generate(nextIndex++, random);
+            } catch (RuntimeException | Error e) {
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                if (error != null) {
+                    // Hand the failure to the game thread rather than leave it waiting for a plan.
+                    failure = error;
+                } else {
+                    queue.add(plan);
+                }
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (error != null) return;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+interface Counter {
+    void increment();
+    long getCount();
+}
+
+interface Timer {
+    void record(long nanos);
+}
+
+interface MetricsRegistry {
+    Counter counter(String name);
+    Timer timer(String name);
+}
+
+class NoopMetricsRegistry implements MetricsRegistry {
+    public static final NoopMetricsRegistry INSTANCE = new NoopMetricsRegistry();
+
+    private static final Counter COUNTER = new Counter() {
+        public void increment() { }
+        public long getCount() { return 0; }
+    };
+    private static final Timer TIMER = nanos -> { };
+
+    private NoopMetricsRegistry() {
+    }
+
+    public Counter counter(String name) { return COUNTER; }
+    public Timer timer(String name) { return TIMER; }
+}
+
+/**
+ * Registry that keeps counters in {@link LongAdder}s and timers in microsecond
+ * {@link Histogram}s, so every instrument can be updated from any thread.
+ */
+class InMemoryMetricsRegistry implements MetricsRegistry {
+    private static final long MAX_TRACKED_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Map<String, AdderCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, HistogramTimer> timers = new ConcurrentHashMap<>();
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new AdderCounter());
+    }
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, key -> new HistogramTimer());
+    }
+
+    public Histogram getTimerHistogram(String name) {
+        HistogramTimer timer = timers.get(name);
+        return timer == null ? null : timer.histogram;
+    }
+
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, AdderCounter> entry : new TreeMap<>(counters).entrySet()) {
+            report.append(String.format("%-20s count=%d%n", entry.getKey(), entry.getValue().getCount()));
+        }
+        for (Map.Entry<String, HistogramTimer> entry : new TreeMap<>(timers).entrySet()) {
+            Histogram histogram = entry.getValue().histogram;
+            report.append(String.format("%-20s n=%-7d total=%-9dms p50=%-8dus p99=%-8dus max=%dus%n",
+                    entry.getKey(), histogram.getTotalCount(),
+                    TimeUnit.NANOSECONDS.toMillis(entry.getValue().totalNanos.sum()),
+                    histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99), histogram.getMax()));
+        }
+        return report.toString();
+    }
+
+    private static class AdderCounter implements Counter {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() { count.increment(); }
+        public long getCount() { return count.sum(); }
+    }
+
+    private static class HistogramTimer implements Timer {
+        private final Histogram histogram = new Histogram(MAX_TRACKED_MICROS, 7);
+        private final LongAdder totalNanos = new LongAdder();
+
+        public void record(long nanos) {
+            histogram.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+            totalNanos.add(nanos);
+        }
+    }
+}
+
+/**
+ * Instrumentation points of the game loop. Each probe feeds both the pluggable
+ * {@link MetricsRegistry} and a matching JDK Flight Recorder event, so a slow
+ * session can be split into render, input, pacing and rules time. A probe is
+ * opened with one of the {@code start} methods, which begins its JFR event, and
+ * closed by the method of the same name.
+ *
+ * <p>Turn, shop and level-up timers record rules time only: input waits and
+ * pacing sleeps that happen inside them are subtracted.
+ */
+class GameLoopMetrics {
+    private final Counter turns;
+    private final Counter shopVisits;
+    private final Counter levelUps;
+    private final Timer turnTimer;
+    private final Timer renderTimer;
+    private final Timer inputTimer;
+    private final Timer pacingTimer;
+    private final Timer shopTimer;
+    private final Timer levelUpTimer;
+    private long waitedNanos;
+
+    public GameLoopMetrics(MetricsRegistry registry) {
+        this.turns = registry.counter("game.turns");
+        this.shopVisits = registry.counter("game.shop.visits");
+        this.levelUps = registry.counter("game.levelups");
+        this.turnTimer = registry.timer("game.turn");
+        this.renderTimer = registry.timer("game.render");
+        this.inputTimer = registry.timer("game.input.wait");
+        this.pacingTimer = registry.timer("game.pacing");
+        this.shopTimer = registry.timer("game.shop.visit");
+        this.levelUpTimer = registry.timer("game.levelup");
+    }
+
+    /** Starts a combat turn once the player's action is known. */
+    public CombatTurnEvent startTurn() {
+        return start(new CombatTurnEvent());
+    }
+
+    public void combatTurn(CombatTurnEvent event, Threat threat, int action) {
+        long elapsed = stopExcludingWaits(event);
+        turns.increment();
+        turnTimer.record(elapsed);
+
+        if (event.shouldCommit()) {
+            event.threatType = threat.getThreatType().name();
+            event.boss = threat.getName().startsWith("BOSS:");
+            event.action = action;
+            event.commit();
+        }
+    }
+
+    public RenderEvent startRender() {
+        return start(new RenderEvent());
+    }
+
+    public void render(RenderEvent event, String screen) {
+        renderTimer.record(event.stop());
+
+        if (event.shouldCommit()) {
+            event.screen = screen;
+            event.commit();
+        }
+    }
+
+    public InputWaitEvent startInputWait() {
+        return start(new InputWaitEvent());
+    }
+
+    public void inputWait(InputWaitEvent event) {
+        long elapsed = event.stop();
+        waitedNanos += elapsed;
+        inputTimer.record(elapsed);
+
+        if (event.shouldCommit()) {
+            event.commit();
+        }
+    }
+
+    public PacingEvent startPacing() {
+        return start(new PacingEvent());
+    }
+
+    public void pacing(PacingEvent event) {
+        long elapsed = event.stop();
+        waitedNanos += elapsed;
+        pacingTimer.record(elapsed);
+
+        if (event.shouldCommit()) {
+            event.commit();
+        }
+    }
+
+    public ShopVisitEvent startShopVisit() {
+        return start(new ShopVisitEvent());
+    }
+
+    public void shopVisit(ShopVisitEvent event, int creditsBefore, int creditsAfter) {
+        long elapsed = stopExcludingWaits(event);
+        shopVisits.increment();
+        shopTimer.record(elapsed);
+
+        if (event.shouldCommit()) {
+            event.creditsSpent = creditsBefore - creditsAfter;
+            event.commit();
+        }
+    }
+
+    public LevelUpEvent startLevelUp() {
+        return start(new LevelUpEvent());
+    }
+
+    public void levelUp(LevelUpEvent event, int level) {
+        long elapsed = stopExcludingWaits(event);
+        levelUps.increment();
+        levelUpTimer.record(elapsed);
+
+        if (event.shouldCommit()) {
+            event.level = level;
+            event.commit();
+        }
+    }
+
+    private <E extends GameLoopEvent> E start(E event) {
+        event.waitedBefore = waitedNanos;
+        event.start();
+        return event;
+    }
+
+    private long stopExcludingWaits(GameLoopEvent event) {
+        return event.stop() - (waitedNanos - event.waitedBefore);
+    }
+}
+
+/**
+ * Time-to-first-prompt breakdown, enabled with {@code -Dzb.startupTrace=true}.
+ * Phases are marked as startup reaches them and the report is printed to
+ * stderr once the game first waits for input. Kept free of JFR and management
+ * classes so tracing does not slow down what it measures.
+ */
+final class StartupTrace {
+    private static final boolean ENABLED = Boolean.getBoolean("zb.startupTrace");
+    private static final long MAIN_NANOS = System.nanoTime();
+    private static final StringBuilder phases = new StringBuilder();
+    private static long lastNanos = MAIN_NANOS;
+    private static volatile boolean reported;
+
+    private StartupTrace() {
+    }
+
+    public static synchronized void mark(String phase) {
+        if (!ENABLED || reported) return;
+
+        long now = System.nanoTime();
+        phases.append(String.format("  %-12s %6.1f ms%n", phase, (now - lastNanos) / 1e6));
+        lastNanos = now;
+    }
+
+    public static void firstPrompt() {
+        if (!ENABLED || reported) return;
+
+        synchronized (StartupTrace.class) {
+            if (reported) return;
+            mark("first-prompt");
+            reported = true;
+
+            long sinceMain = (System.nanoTime() - MAIN_NANOS) / 1_000_000;
+            String sinceLaunch = ProcessHandle.current().info().startInstant()
+                    .map(start -> (System.currentTimeMillis() - start.toEpochMilli()) + " ms")
+                    .orElse("unknown");
+            System.err.print("Startup trace (since main " + sinceMain + " ms, since launch " + sinceLaunch + "):\n" + phases);
+        }
+    }
+}
+
+/**
+ * Base of the game loop events. JFR times the event itself between
+ * {@link #start()} and {@link #stop()}; the transient fields only carry what
+ * the registry timers need and are not recorded.
+ */
+abstract class GameLoopEvent extends Event {
+    transient long startNanos;
+    transient long waitedBefore;
+
+    void start() {
+        startNanos = System.nanoTime();
+        begin();
+    }
+
+    long stop() {
+        end();
+        return System.nanoTime() - startNanos;
+    }
+}
+
+@Name("zombiebombie.CombatTurn")
+@Label("Combat Turn")
+@Category({"Zombie Bombie", "Game Loop"})
+@Description("Resolving one action of a fight, from the player's choice to the next screen")
+@StackTrace(false)
+class CombatTurnEvent extends GameLoopEvent {
+    @Label("Threat Type")
+    String threatType;
+
+    @Label("Boss")
+    boolean boss;
+
+    @Label("Action")
+    int action;
+}
+
+@Name("zombiebombie.Render")
+@Label("Render")
+@Category({"Zombie Bombie", "Game Loop"})
+@StackTrace(false)
+class RenderEvent extends GameLoopEvent {
+    @Label("Screen")
+    String screen;
+}
+
+@Name("zombiebombie.InputWait")
+@Label("Input Wait")
+@Category({"Zombie Bombie", "Game Loop"})
+@StackTrace(false)
+class InputWaitEvent extends GameLoopEvent {
+}
+
+@Name("zombiebombie.Pacing")
+@Label("Pacing")
+@Category({"Zombie Bombie", "Game Loop"})
+@StackTrace(false)
+class PacingEvent extends GameLoopEvent {
+}
+
+@Name("zombiebombie.ShopVisit")
+@Label("Shop Visit")
+@Category({"Zombie Bombie", "Game Loop"})
+@StackTrace(false)
+class ShopVisitEvent extends GameLoopEvent {
+    @Label("Credits Spent")
+    int creditsSpent;
+}
+
+@Name("zombiebombie.LevelUp")
+@Label("Level Up")
+@Category({"Zombie Bombie", "Game Loop"})
+@StackTrace(false)
+class LevelUpEvent extends GameLoopEvent {
+    @Label("Level")
+    int level;
+}
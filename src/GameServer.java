@@ -0,0 +1,811 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Every answer a session's game has consumed, in order. Together with the seed
+ * this is the whole session: replaying it through a new {@link Game} rebuilds
+ * the same state. Written as zigzag varints, so most answers take one byte.
+ */
+class InputLog {
+    private int[] values = new int[64];
+    private int size;
+
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<Integer> toList() {
+        List<Integer> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(values[i]);
+        }
+        return list;
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            int zigzag = (values[i] << 1) ^ (values[i] >> 31);
+            while ((zigzag & ~0x7F) != 0) {
+                out.writeByte((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            out.writeByte(zigzag);
+        }
+    }
+
+    public static InputLog readFrom(DataInputStream in) throws IOException {
+        InputLog log = new InputLog();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            int zigzag = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = in.readUnsignedByte();
+                zigzag |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            log.add((zigzag >>> 1) ^ -(zigzag & 1));
+        }
+        return log;
+    }
+}
+
+/**
+ * One queued answer and the prompt it was written for. Named API actions know
+ * which menu they answer; raw numbers and replayed history answer whatever is
+ * asked.
+ */
+class Answer {
+    private final int value;
+    private final Prompt prompt;
+    private final Object action;
+
+    public Answer(int value, Prompt prompt, Object action) {
+        this.value = value;
+        this.prompt = prompt;
+        this.action = action;
+    }
+
+    public static Answer any(int value) {
+        return new Answer(value, null, value);
+    }
+
+    public boolean fits(Prompt asked) {
+        return prompt == null || prompt == asked;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public Prompt getPrompt() {
+        return prompt;
+    }
+
+    public Object getAction() {
+        return action;
+    }
+}
+
+/**
+ * Input fed by API requests. The game thread blocks in {@link #nextInt} until
+ * actions arrive; request threads block in {@link #awaitIdle} until the game has
+ * consumed every queued action and is waiting again (or has finished).
+ *
+ * <p>An answer that does not fit the prompt the game is asking, such as a
+ * second step of "item:1" after the game said the inventory is empty, is not
+ * fed to the game: it and the rest of its batch are dropped and reported by
+ * {@link #takeRejection()}, so one refused action cannot shift every later
+ * answer onto the wrong menu.
+ */
+class SessionInput implements GameInput {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final ArrayDeque<Answer> pending = new ArrayDeque<>();
+    private final InputLog history = new InputLog();
+    private Prompt waitingPrompt;
+    private String rejection;
+    private boolean finished;
+    private boolean closed;
+
+    public int nextInt(Prompt prompt) {
+        lock.lock();
+        try {
+            while (true) {
+                while (pending.isEmpty() && !closed) {
+                    waitingPrompt = prompt;
+                    changed.signalAll();
+                    changed.awaitUninterruptibly();
+                }
+                waitingPrompt = null;
+                if (closed) {
+                    throw new NoSuchElementException("Session closed");
+                }
+                Answer answer = pending.poll();
+                if (answer.fits(prompt)) {
+                    history.add(answer.getValue());
+                    return answer.getValue();
+                }
+                rejection = "Action " + answer.getAction() + " answers " + answer.getPrompt() + " but the game asked for "
+                        + prompt + "; it and the " + pending.size() + " action(s) after it were not applied";
+                pending.clear();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void skipLine() {
+    }
+
+    public void submit(List<Answer> inputs) {
+        lock.lock();
+        try {
+            if (finished || closed) {
+                throw new IllegalStateException("Session is over");
+            }
+            rejection = null;
+            pending.addAll(inputs);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Prompt awaitIdle(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            while (!(pending.isEmpty() && (waitingPrompt != null || finished))) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Game did not settle in time");
+                }
+                changed.awaitNanos(remaining);
+            }
+            return waitingPrompt;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the game");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void finish() {
+        lock.lock();
+        try {
+            finished = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns why the last batch was cut short, or {@code null} if all of it was applied. */
+    public String takeRejection() {
+        lock.lock();
+        try {
+            String reason = rejection;
+            rejection = null;
+            return reason;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isFinished() {
+        lock.lock();
+        try {
+            return finished;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public InputLog getHistory() {
+        lock.lock();
+        try {
+            return history;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
+
+/**
+ * One headless game driven by API calls. The game loop runs on its own thread
+ * and is only inspected while it is parked waiting for input.
+ *
+ * <p>A session left idle at a prompt can be hibernated: the seed, the log of
+ * consumed answers and any unread output are written to a small spool file
+ * and the game, its thread and its buffers are dropped. The next action
+ * replays the log into a fresh game with pacing off, which lands on the same
+ * prompt with the same state, and carries on. Reading the state does not
+ * wake a session; the last snapshot is kept.
+ *
+ * <p>A finished game has nothing left to replay, so once idle it keeps only
+ * its final state and any unread output and drops everything else without
+ * spooling.
+ */
+class GameSession {
+    private static final long SETTLE_TIMEOUT_MILLIS = 10_000;
+    private static final int SPOOL_MAGIC = 0x5A42_5353;
+    private static final int SPOOL_VERSION = 1;
+
+    private final String id;
+    private final long seed;
+    private final Leaderboard leaderboard;
+    private final Path spoolFile;
+    private ExecutorService executor;
+    private Game game;
+    private SessionInput input;
+    private ByteArrayOutputStream output;
+    private boolean over;
+    private String finalOutput = "";
+    private Map<String, Object> lastState = new LinkedHashMap<>();
+    private volatile long lastActive = System.nanoTime();
+
+    public GameSession(String id, long seed, Leaderboard leaderboard, Path spoolFile) {
+        this.id = id;
+        this.seed = seed;
+        this.leaderboard = leaderboard;
+        this.spoolFile = spoolFile;
+        load();
+    }
+
+    private void load() {
+        this.input = new SessionInput();
+        this.output = new ByteArrayOutputStream();
+        this.game = new Game(new Terminal(input, new PrintStream(output, true, StandardCharsets.UTF_8), false), seed, null);
+        this.game.setLeaderboard(leaderboard);
+    }
+
+    public void start(ExecutorService executor) {
+        this.executor = executor;
+        SessionInput sessionInput = input;
+        Game sessionGame = game;
+        executor.execute(() -> {
+            try {
+                sessionGame.start();
+            } finally {
+                sessionInput.finish();
+            }
+        });
+    }
+
+    public synchronized boolean isHibernated() {
+        return game == null;
+    }
+
+    /**
+     * Spools the session to disk if it has been idle for at least
+     * {@code idleNanos}. Returns whether it did.
+     */
+    public synchronized boolean hibernateIfIdle(long idleNanos) throws IOException {
+        if (game == null || System.nanoTime() - lastActive < idleNanos) {
+            return false;
+        }
+        if (input.isFinished()) {
+            finalOutput = drainOutput();
+            over = true;
+            input.close();
+            game = null;
+            input = null;
+            output = null;
+            return true;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SPOOL_MAGIC);
+            out.writeInt(SPOOL_VERSION);
+            out.writeLong(seed);
+            input.getHistory().writeTo(out);
+            out.writeUTF(Json.write(lastState));
+            byte[] unread = drainOutput().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(unread.length);
+            out.write(unread);
+        }
+        Files.createDirectories(spoolFile.getParent());
+        Path temp = Files.createTempFile(spoolFile.getParent(), "session", ".tmp");
+        Files.write(temp, bytes.toByteArray());
+        Files.move(temp, spoolFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        input.close();
+        game = null;
+        input = null;
+        output = null;
+        return true;
+    }
+
+    /** Rebuilds a hibernated session by replaying its answers. */
+    private void wake() {
+        if (game != null || over) return;
+
+        InputLog history;
+        String savedState;
+        byte[] unread;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(spoolFile)))) {
+            if (in.readInt() != SPOOL_MAGIC || in.readInt() != SPOOL_VERSION || in.readLong() != seed) {
+                throw new IllegalStateException("Session " + id + " spool file is not valid");
+            }
+            history = InputLog.readFrom(in);
+            savedState = in.readUTF();
+            unread = new byte[in.readInt()];
+            in.readFully(unread);
+        } catch (IOException e) {
+            throw new IllegalStateException("Session " + id + " could not be restored: " + e.getMessage());
+        }
+
+        load();
+        start(executor);
+        if (history.size() > 0) {
+            List<Answer> answers = new ArrayList<>();
+            for (int value : history.toList()) {
+                answers.add(Answer.any(value));
+            }
+            input.submit(answers);
+        }
+        Prompt prompt = input.awaitIdle(SETTLE_TIMEOUT_MILLIS);
+        Map<String, Object> restored = snapshot(prompt);
+        if (!Json.write(restored).equals(savedState)) {
+            input.close();
+            throw new IllegalStateException("Session " + id + " replayed to a different state; content may have changed");
+        }
+        lastState = restored;
+        output.reset();
+        output.writeBytes(unread);
+        deleteSpool();
+    }
+
+    public synchronized Map<String, Object> settle(boolean includeOutput) {
+        Prompt prompt = input.awaitIdle(SETTLE_TIMEOUT_MILLIS);
+        lastState = snapshot(prompt);
+        return response(lastState, includeOutput);
+    }
+
+    /**
+     * Feeds a batch of answers and returns the state fields that changed. If an
+     * answer did not fit the prompt it met, the ones before it stay applied and
+     * the rest are refused with an {@link IllegalStateException}.
+     */
+    public synchronized Map<String, Object> apply(List<Answer> inputs, boolean includeOutput) {
+        lastActive = System.nanoTime();
+        if (over) {
+            throw new IllegalStateException("Session is over");
+        }
+        wake();
+        Map<String, Object> before = lastState;
+        input.submit(inputs);
+        Prompt prompt = input.awaitIdle(SETTLE_TIMEOUT_MILLIS);
+        lastState = snapshot(prompt);
+        String rejection = input.takeRejection();
+        if (rejection != null) {
+            throw new IllegalStateException(rejection);
+        }
+
+        Map<String, Object> diff = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : lastState.entrySet()) {
+            if (!Objects.equals(before.get(entry.getKey()), entry.getValue())) {
+                diff.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", id);
+        response.put("prompt", lastState.get("prompt"));
+        response.put("diff", diff);
+        if (includeOutput) {
+            response.put("output", drainOutput());
+        } else {
+            drainOutput();
+        }
+        return response;
+    }
+
+    public synchronized Map<String, Object> state(boolean includeOutput) {
+        if (includeOutput) {
+            lastActive = System.nanoTime();
+            wake();
+        }
+        return response(lastState, includeOutput);
+    }
+
+    public synchronized Prompt currentPrompt() {
+        Object prompt = lastState.get("prompt");
+        return prompt == null ? null : Prompt.valueOf((String) prompt);
+    }
+
+    public synchronized void close() {
+        if (game == null) {
+            deleteSpool();
+        } else {
+            input.close();
+        }
+    }
+
+    private void deleteSpool() {
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            System.err.println("Could not delete " + spoolFile + ": " + e.getMessage());
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private Map<String, Object> response(Map<String, Object> state, boolean includeOutput) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", id);
+        response.put("state", state);
+        if (includeOutput) {
+            response.put("output", drainOutput());
+        }
+        return response;
+    }
+
+    private String drainOutput() {
+        if (output == null) {
+            String text = finalOutput;
+            finalOutput = "";
+            return text;
+        }
+        synchronized (output) {
+            String text = output.toString(StandardCharsets.UTF_8);
+            output.reset();
+            return text;
+        }
+    }
+
+    private Map<String, Object> snapshot(Prompt prompt) {
+        Player player = game.getPlayer();
+        Weapon weapon = player.getCurrentWeapon();
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("seed", game.getSeed());
+        state.put("encounter", game.getEncounterCount());
+        state.put("health", player.getHealth());
+        state.put("maxHealth", player.getMaxHealth());
+        state.put("level", player.getLevel());
+        state.put("experience", player.getExperience());
+        state.put("experienceToNextLevel", player.getExperienceToNextLevel());
+        state.put("credits", player.getMoney());
+        state.put("defense", player.getBaseDefense());
+        state.put("weapon", weapon.getName());
+        state.put("weaponPower", weapon.getTotalPower());
+        state.put("durability", weapon.getDurability());
+
+        List<String> inventory = new ArrayList<>();
+        for (Item item : player.getInventory()) {
+            inventory.add(item.getName());
+        }
+        state.put("inventory", inventory);
+        state.put("relics", player.getRelics());
+
+        Threat threat = game.getCurrentThreat();
+        if (threat != null) {
+            Map<String, Object> threatState = new LinkedHashMap<>();
+            threatState.put("name", threat.getName());
+            threatState.put("type", threat.getThreatType().name());
+            threatState.put("health", threat.getHealth());
+            threatState.put("maxHealth", threat.getMaxHealth());
+            state.put("threat", threatState);
+        } else {
+            state.put("threat", null);
+        }
+        state.put("prompt", prompt == null ? null : prompt.name());
+        state.put("gameOver", input.isFinished());
+        return state;
+    }
+}
+
+/**
+ * Local HTTP/JSON API so bots and web frontends can play through the same
+ * {@link Game} rules as the terminal.
+ *
+ * <pre>
+ * POST   /sessions                  {"seed": 42}             create a session
+ * GET    /sessions/{id}                                      full state
+ * POST   /sessions/{id}/actions     {"actions": ["attack", "special:1", 3]}
+ * POST   /sessions/{id}/shop        {"buy": [1, 4], "leave": true}
+ * DELETE /sessions/{id}                                      end a session
+ * </pre>
+ *
+ * A batch of actions is applied in order and answered with a single diff of
+ * the state fields that changed. Add {@code "verbose": true} to also get the
+ * text the game printed.
+ * Named actions must meet the menu they answer: if the game asks something
+ * else, e.g. "buy:2" outside a shop or "item:1" with an empty inventory, that
+ * action and the rest of the batch are refused with 409, after the actions
+ * before it were applied. Raw numbers answer whatever is asked.
+ *
+ * <p>Sessions idle for {@code -Dzb.server.hibernateSeconds} (default 120, 0
+ * to disable) are spooled to {@code <home>/sessions} and woken on their next
+ * action, so memory follows the players who are actually playing.
+ */
+class GameServer {
+    private static final int HIBERNATE_SECONDS = Integer.getInteger("zb.server.hibernateSeconds", 120);
+    static final int MAX_ANSWER = 99;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService reaper;
+    private final Map<String, GameSession> sessions = new ConcurrentHashMap<>();
+    private final Leaderboard leaderboard;
+    private final Path spoolDirectory;
+
+    public GameServer(int port, Leaderboard leaderboard) throws IOException {
+        this.leaderboard = leaderboard;
+        this.spoolDirectory = GameFiles.home().resolve("sessions");
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.reaper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "session-hibernator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/sessions", this::handle);
+    }
+
+    public void start() {
+        server.start();
+        if (HIBERNATE_SECONDS > 0) {
+            long period = Math.max(1, HIBERNATE_SECONDS / 4);
+            reaper.scheduleWithFixedDelay(this::hibernateIdle, period, period, TimeUnit.SECONDS);
+        }
+    }
+
+    public void stop() {
+        server.stop(0);
+        reaper.shutdownNow();
+        sessions.values().forEach(GameSession::close);
+        executor.shutdownNow();
+    }
+
+    /** Spools every session idle for longer than the hibernation timeout. */
+    void hibernateIdle() {
+        long idleNanos = TimeUnit.SECONDS.toNanos(HIBERNATE_SECONDS);
+        for (GameSession session : sessions.values()) {
+            try {
+                session.hibernateIfIdle(idleNanos);
+            } catch (IOException e) {
+                System.err.println("Could not hibernate session " + session.getId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public int getHibernatedCount() {
+        int count = 0;
+        for (GameSession session : sessions.values()) {
+            if (session.isHibernated()) count++;
+        }
+        return count;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+            String method = exchange.getRequestMethod();
+            Map<String, Object> body = readBody(exchange);
+            boolean verbose = Boolean.TRUE.equals(body.get("verbose"));
+
+            if (path.length == 2 && method.equals("POST")) {
+                send(exchange, 201, createSession(body, verbose));
+                return;
+            }
+            if (path.length < 3) {
+                send(exchange, 404, error("Not found"));
+                return;
+            }
+
+            GameSession session = sessions.get(path[2]);
+            if (session == null) {
+                send(exchange, 404, error("Unknown session " + path[2]));
+                return;
+            }
+
+            if (path.length == 3 && method.equals("GET")) {
+                send(exchange, 200, session.state(verbose));
+            } else if (path.length == 3 && method.equals("DELETE")) {
+                sessions.remove(session.getId());
+                session.close();
+                send(exchange, 204, null);
+            } else if (path.length == 4 && path[3].equals("actions") && method.equals("POST")) {
+                send(exchange, 200, session.apply(parseActions(body.get("actions")), verbose));
+            } else if (path.length == 4 && path[3].equals("shop") && method.equals("POST")) {
+                if (session.currentPrompt() != Prompt.SHOP_PURCHASE) {
+                    send(exchange, 409, error("Not in a shop"));
+                    return;
+                }
+                send(exchange, 200, session.apply(parseShopActions(body), verbose));
+            } else {
+                send(exchange, 404, error("Not found"));
+            }
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            send(exchange, 409, error(e.getMessage()));
+        } catch (RuntimeException e) {
+            send(exchange, 500, error(e.toString()));
+        }
+    }
+
+    private Map<String, Object> createSession(Map<String, Object> body, boolean verbose) {
+        Object seed = body.get("seed");
+        long sessionSeed = seed instanceof Number ? ((Number) seed).longValue() : System.nanoTime();
+        String id = UUID.randomUUID().toString().substring(0, 8);
+
+        GameSession session = new GameSession(id, sessionSeed, leaderboard, spoolDirectory.resolve(id + ".session"));
+        sessions.put(id, session);
+        session.start(executor);
+        return session.settle(verbose);
+    }
+
+    /**
+     * Turns API actions into answers. Named actions are tagged with the menu
+     * each of their steps answers, so the session can refuse them at the wrong
+     * prompt; raw numbers are only range-checked.
+     */
+    static List<Answer> parseActions(Object actions) {
+        if (!(actions instanceof List)) {
+            throw new IllegalArgumentException("'actions' must be an array");
+        }
+
+        List<Answer> inputs = new ArrayList<>();
+        for (Object action : (List<?>) actions) {
+            if (action instanceof Number) {
+                inputs.add(new Answer(checkAnswer(((Number) action).doubleValue(), action), null, action));
+                continue;
+            }
+            String[] parts = String.valueOf(action).split(":");
+            int argument = parts.length > 1 ? parseArgument(parts[1]) : -1;
+            switch (parts[0]) {
+                case "attack" -> inputs.add(new Answer(1, Prompt.COMBAT_ACTION, action));
+                case "item" -> {
+                    inputs.add(new Answer(2, Prompt.COMBAT_ACTION, action));
+                    inputs.add(new Answer(requireArgument(argument, action), Prompt.ITEM_CHOICE, action));
+                }
+                case "block" -> inputs.add(new Answer(3, Prompt.COMBAT_ACTION, action));
+                case "stats" -> inputs.add(new Answer(4, Prompt.COMBAT_ACTION, action));
+                case "special" -> {
+                    inputs.add(new Answer(5, Prompt.COMBAT_ACTION, action));
+                    inputs.add(new Answer(requireArgument(argument, action), Prompt.MOVE_CHOICE, action));
+                }
+                case "upgrade" -> inputs.add(new Answer(requireArgument(argument, action), Prompt.UPGRADE_CHOICE, action));
+                case "buy" -> inputs.add(new Answer(requireArgument(argument, action), Prompt.SHOP_PURCHASE, action));
+                case "leave" -> inputs.add(new Answer(0, Prompt.SHOP_PURCHASE, action));
+                case "cancel" -> inputs.add(new Answer(0, null, action));
+                default -> throw new IllegalArgumentException("Unknown action " + action);
+            }
+        }
+        return inputs;
+    }
+
+    private static List<Answer> parseShopActions(Map<String, Object> body) {
+        List<Answer> inputs = new ArrayList<>();
+        Object buy = body.get("buy");
+        if (buy instanceof List) {
+            for (Object choice : (List<?>) buy) {
+                if (!(choice instanceof Number) || ((Number) choice).intValue() < 1) {
+                    throw new IllegalArgumentException("'buy' must list shop entry numbers");
+                }
+                inputs.add(new Answer(((Number) choice).intValue(), Prompt.SHOP_PURCHASE, "buy:" + choice));
+            }
+        }
+        if (Boolean.TRUE.equals(body.get("leave"))) {
+            inputs.add(new Answer(0, Prompt.SHOP_PURCHASE, "leave"));
+        }
+        return inputs;
+    }
+
+    /** Raw answers are menu numbers; anything else is rejected before it reaches the game. */
+    private static int checkAnswer(double answer, Object action) {
+        if (answer < 0 || answer > MAX_ANSWER || answer != Math.rint(answer)) {
+            throw new IllegalArgumentException("Action " + action + " must be a whole number from 0 to " + MAX_ANSWER);
+        }
+        return (int) answer;
+    }
+
+    private static int parseArgument(String argument) {
+        try {
+            return checkAnswer(Integer.parseInt(argument), argument);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid action argument " + argument);
+        }
+    }
+
+    private static int requireArgument(int argument, Object action) {
+        if (argument < 0) {
+            throw new IllegalArgumentException("Action " + action + " needs a number, e.g. " + action + ":1");
+        }
+        return argument;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        byte[] bytes = exchange.getRequestBody().readAllBytes();
+        if (bytes.length == 0) {
+            return new LinkedHashMap<>();
+        }
+        Object body = Json.parse(new String(bytes, StandardCharsets.UTF_8));
+        if (!(body instanceof Map)) {
+            throw new IllegalArgumentException("Request body must be a JSON object");
+        }
+        return (Map<String, Object>) body;
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", message);
+        return error;
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
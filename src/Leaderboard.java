@@ -0,0 +1,356 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.zip.CRC32;
+
+class RunRecord {
+    private final long seed;
+    private final int encountersCleared;
+    private final int level;
+    private final List<String> relics;
+    private final String weapon;
+    private final long finishedAt;
+
+    public RunRecord(long seed, int encountersCleared, int level, List<String> relics, String weapon, long finishedAt) {
+        this.seed = seed;
+        this.encountersCleared = encountersCleared;
+        this.level = level;
+        this.relics = List.copyOf(relics);
+        this.weapon = weapon;
+        this.finishedAt = finishedAt;
+    }
+
+    public static final Comparator<RunRecord> BEST_FIRST = Comparator
+            .comparingInt(RunRecord::getEncountersCleared).reversed()
+            .thenComparing(Comparator.comparingInt(RunRecord::getLevel).reversed())
+            .thenComparingLong(RunRecord::getFinishedAt);
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(seed);
+        out.writeInt(encountersCleared);
+        out.writeShort(level);
+        out.writeUTF(weapon);
+        out.writeShort(relics.size());
+        for (String relic : relics) {
+            out.writeUTF(relic);
+        }
+        out.writeLong(finishedAt);
+    }
+
+    public static RunRecord readFrom(DataInputStream in) throws IOException {
+        long seed = in.readLong();
+        int encountersCleared = in.readInt();
+        int level = in.readShort();
+        String weapon = in.readUTF();
+        int relicCount = in.readShort();
+        List<String> relics = new ArrayList<>(relicCount);
+        for (int i = 0; i < relicCount; i++) {
+            relics.add(in.readUTF());
+        }
+        long finishedAt = in.readLong();
+        return new RunRecord(seed, encountersCleared, level, relics, weapon, finishedAt);
+    }
+
+    public long getSeed() { return seed; }
+    public int getEncountersCleared() { return encountersCleared; }
+    public int getLevel() { return level; }
+    public List<String> getRelics() { return relics; }
+    public String getWeapon() { return weapon; }
+    public long getFinishedAt() { return finishedAt; }
+}
+
+/**
+ * Bounded best-K set backed by a min-heap whose head is the worst kept run.
+ * The sorted view is cached until the next accepted insert, so repeated
+ * queries are a list copy.
+ */
+class TopRuns {
+    private final int capacity;
+    private final PriorityQueue<RunRecord> heap;
+    private List<RunRecord> sorted = Collections.emptyList();
+    private boolean dirty;
+
+    public TopRuns(int capacity) {
+        this.capacity = capacity;
+        this.heap = new PriorityQueue<>(capacity + 1, RunRecord.BEST_FIRST.reversed());
+    }
+
+    public boolean offer(RunRecord record) {
+        if (heap.size() < capacity) {
+            heap.add(record);
+        } else if (RunRecord.BEST_FIRST.compare(record, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(record);
+        } else {
+            return false;
+        }
+        dirty = true;
+        return true;
+    }
+
+    public List<RunRecord> top(int limit) {
+        if (dirty) {
+            List<RunRecord> records = new ArrayList<>(heap);
+            records.sort(RunRecord.BEST_FIRST);
+            sorted = records;
+            dirty = false;
+        }
+        return new ArrayList<>(sorted.subList(0, Math.min(limit, sorted.size())));
+    }
+
+    public int size() {
+        return heap.size();
+    }
+}
+
+/**
+ * High-score store shared by every game session on the host.
+ *
+ * <p>Finished runs are appended to {@code leaderboard.log} as length-prefixed,
+ * CRC-checked frames under an exclusive file lock, so concurrent processes never
+ * interleave writes. A frame left torn or corrupt by a crashed writer is cut off
+ * by the next append. Each process keeps the global top-K in memory and tails
+ * the log before answering a query. A compact snapshot holding only those runs
+ * and the log offset it covers is rewritten once the log has grown
+ * {@link #SNAPSHOT_INTERVAL_BYTES} past the last one, whichever process gets
+ * there, so startup replays the snapshot plus the short tail of the log instead
+ * of the full history.
+ *
+ * <p>Per-seed rankings are built on demand: the first query for a seed scans
+ * the log for its runs, and the result is cached and kept current by the tail
+ * for the {@link #MAX_SEEDS} most recently queried seeds. The log is the
+ * record of truth, so a seed dropped from the cache is rebuilt, never lost.
+ */
+class Leaderboard {
+    public static final int TOP_K = 100;
+
+    private static final int SNAPSHOT_MAGIC = 0x5A42_4C42;
+    private static final int SNAPSHOT_VERSION = 1;
+    public static final int MAX_SEEDS = 1024;
+    private static final int SNAPSHOT_INTERVAL_BYTES = 32 * 1024;
+    private static final int MAX_FRAME_BYTES = 64 * 1024;
+
+    private final Path logFile;
+    private final Path snapshotFile;
+    private final TopRuns global = new TopRuns(TOP_K);
+    private final Map<Long, TopRuns> bySeed = new LinkedHashMap<>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Long, TopRuns> eldest) {
+            return size() > MAX_SEEDS;
+        }
+    };
+    private long logOffset;
+    private long snapshotOffset;
+    private boolean snapshotLoaded;
+
+    private Leaderboard(Path directory) {
+        this.logFile = directory.resolve("leaderboard.log");
+        this.snapshotFile = directory.resolve("leaderboard.snapshot");
+    }
+
+    /**
+     * Opens the store without reading it; the snapshot and log are loaded on the
+     * first record or query, which keeps them off the time to the first prompt.
+     */
+    public static Leaderboard open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return new Leaderboard(directory);
+    }
+
+    public synchronized void record(RunRecord record) throws IOException {
+        loadSnapshotOnce();
+        byte[] frame = encodeFrame(record);
+
+        try (FileChannel channel = FileChannel.open(logFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+            channel.lock();
+            readFrames(channel);
+            if (channel.size() > logOffset) {
+                channel.truncate(logOffset);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(frame);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, logOffset + buffer.position());
+            }
+            channel.force(false);
+            readFrames(channel);
+
+            if (logOffset - snapshotOffset >= SNAPSHOT_INTERVAL_BYTES) {
+                writeSnapshot();
+            }
+        }
+    }
+
+    public synchronized List<RunRecord> top(int limit) {
+        refresh();
+        return global.top(limit);
+    }
+
+    public synchronized List<RunRecord> topForSeed(long seed, int limit) {
+        refresh();
+        TopRuns runs = bySeed.get(seed);
+        if (runs == null) {
+            try {
+                runs = loadSeed(seed);
+            } catch (IOException e) {
+                System.err.println("Could not read leaderboard for seed " + seed + ": " + e.getMessage());
+                return new ArrayList<>();
+            }
+        }
+        return runs.top(limit);
+    }
+
+    private void refresh() {
+        try {
+            loadSnapshotOnce();
+            catchUp();
+        } catch (IOException e) {
+            System.err.println("Could not refresh leaderboard: " + e.getMessage());
+        }
+    }
+
+    private void catchUp() throws IOException {
+        if (!Files.exists(logFile) || Files.size(logFile) == logOffset) return;
+
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            readFrames(channel);
+        }
+    }
+
+    private void readFrames(FileChannel channel) throws IOException {
+        logOffset = scan(channel, logOffset, Long.MAX_VALUE, payload -> index(decode(payload)));
+    }
+
+    /**
+     * Visits the payload of each intact frame from {@code offset} up to
+     * {@code end} and returns the offset after the last one.
+     */
+    private static long scan(FileChannel channel, long offset, long end, PayloadVisitor visitor) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        while (offset < end) {
+            header.clear();
+            if (channel.read(header, offset) < Integer.BYTES) break;
+            int length = header.flip().getInt();
+            if (length <= 0 || length > MAX_FRAME_BYTES) break;
+
+            ByteBuffer body = ByteBuffer.allocate(length + Long.BYTES);
+            if (channel.read(body, offset + Integer.BYTES) < body.capacity()) break;
+            body.flip();
+            byte[] payload = new byte[length];
+            body.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (body.getLong() != crc.getValue()) break;
+
+            visitor.visit(payload);
+            offset += Integer.BYTES + length + Long.BYTES;
+        }
+        return offset;
+    }
+
+    private interface PayloadVisitor {
+        void visit(byte[] payload) throws IOException;
+    }
+
+    private static RunRecord decode(byte[] payload) throws IOException {
+        return RunRecord.readFrom(new DataInputStream(new ByteArrayInputStream(payload)));
+    }
+
+    private void index(RunRecord record) {
+        global.offer(record);
+        TopRuns runs = bySeed.get(record.getSeed());
+        if (runs != null) {
+            runs.offer(record);
+        }
+    }
+
+    /** Builds a seed's ranking from every run in the log up to what this store has read. */
+    private TopRuns loadSeed(long seed) throws IOException {
+        TopRuns runs = new TopRuns(TOP_K);
+        if (Files.exists(logFile)) {
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+                scan(channel, 0, logOffset, payload -> {
+                    // The seed leads the payload, so other seeds' runs are skipped undecoded.
+                    if (ByteBuffer.wrap(payload).getLong() == seed) {
+                        runs.offer(decode(payload));
+                    }
+                });
+            }
+        }
+        bySeed.put(seed, runs);
+        return runs;
+    }
+
+    private void loadSnapshotOnce() throws IOException {
+        if (snapshotLoaded) return;
+        snapshotLoaded = true;
+        loadSnapshot();
+    }
+
+    private void loadSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) return;
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) return;
+            long coveredOffset = in.readLong();
+            int count = in.readInt();
+            List<RunRecord> records = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                records.add(RunRecord.readFrom(in));
+            }
+            records.forEach(this::index);
+            logOffset = coveredOffset;
+            snapshotOffset = coveredOffset;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable leaderboard snapshot (" + e + "), replaying the full log");
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        List<RunRecord> ranked = global.top(TOP_K);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(logOffset);
+            out.writeInt(ranked.size());
+            for (RunRecord record : ranked) {
+                record.writeTo(out);
+            }
+        }
+
+        Path temp = Files.createTempFile(snapshotFile.getParent(), "leaderboard", ".tmp");
+        Files.write(temp, bytes.toByteArray());
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        snapshotOffset = logOffset;
+    }
+
+    private static byte[] encodeFrame(RunRecord record) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            record.writeTo(out);
+        }
+        byte[] body = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + body.length + Long.BYTES);
+        frame.putInt(body.length).put(body).putLong(crc.getValue());
+        return frame.array();
+    }
+}
@@ -1,7 +1,12 @@
 
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.Random;
 import java.util.Scanner;
 import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.stream.Collectors;
@@ -46,6 +51,7 @@ enum ItemType {
 }
 
 class Item {
+    private int itemId;
     private String name;
     private String description;
     private ItemType type;
@@ -55,6 +61,11 @@ class Item {
     private boolean consumable;
 
     public Item(String name, String description, ItemType type, int power, int uses, int price, boolean consumable) {
+        this(-1, name, description, type, power, uses, price, consumable);
+    }
+
+    public Item(int itemId, String name, String description, ItemType type, int power, int uses, int price, boolean consumable) {
+        this.itemId = itemId;
         this.name = name;
         this.description = description;
         this.type = type;
@@ -64,22 +75,22 @@ class Item {
         this.consumable = consumable;
     }
 
-    public void use(Player player) {
+    public void use(Player player, PrintStream out) {
         if (uses <= 0) return;
 
         switch (type) {
             case HEALTH:
                 player.heal(power);
-                System.out.println("Restored " + power + " health points!");
+                out.println("Restored " + power + " health points!");
                 break;
             case DEFENSE:
-                System.out.println("Defense increased by " + power + " for the next battle!");
+                out.println("Defense increased by " + power + " for the next battle!");
                 break;
             case ATTACK:
-                System.out.println("Attack increased by " + power + " for the next battle!");
+                out.println("Attack increased by " + power + " for the next battle!");
                 break;
             case UTILITY:
-                System.out.println("Used " + name + "!");
+                out.println("Used " + name + "!");
                 break;
         }
 
@@ -88,6 +99,7 @@ class Item {
         }
     }
 
+    public int getItemId() { return itemId; }
     public String getName() { return name; }
     public String getDescription() { return description; }
     public ItemType getType() { return type; }
@@ -98,41 +110,39 @@ class Item {
 }
 
 class ItemFactory {
-    private static final Item[] COMMON_ITEMS = {
-            new Item("Small Health Pack", "Restores 20 HP", ItemType.HEALTH, 20, 1, 50, true),
-            new Item("Medium Health Pack", "Restores 50 HP", ItemType.HEALTH, 50, 1, 100, true),
-            new Item("Firewall Boost", "Temporarily increases defense", ItemType.DEFENSE, 5, 1, 75, true),
-            new Item("Virus Scanner", "Increases attack power", ItemType.ATTACK, 10, 1, 100, true)
-    };
-
-    private static final Item[] RARE_ITEMS = {
-            new Item("Large Health Pack", "Restores 100 HP", ItemType.HEALTH, 100, 1, 200, true),
-            new Item("Advanced Firewall", "Greatly increases defense", ItemType.DEFENSE, 15, 1, 250, true),
-            new Item("Premium Antivirus", "Greatly increases attack", ItemType.ATTACK, 25, 1, 300, true)
-    };
-
-    public static Item createRandomItem(int playerLevel) {
-        Random random = new Random();
+    public static Item createRandomItem(int playerLevel, Random random) {
+        return createItem(playerLevel, random.nextDouble(), random.nextInt(Integer.MAX_VALUE));
+    }
 
-        boolean isRare = random.nextDouble() < (0.1 * playerLevel);
+    public static Item createItem(int playerLevel, double rareRoll, int pick) {
+        ContentCatalog catalog = ContentCatalog.current();
+        boolean isRare = rareRoll < (0.1 * playerLevel);
 
-        Item[] sourceArray = isRare ? RARE_ITEMS : COMMON_ITEMS;
-        return sourceArray[random.nextInt(sourceArray.length)];
+        int itemId = isRare ? catalog.getRareItemId(pick) : catalog.getCommonItemId(pick);
+        return catalog.getItem(itemId).create();
     }
 
-    public static List<Item> getShopItems(int playerLevel) {
+    public static List<Item> getShopItems(int playerLevel, Random random) {
         List<Item> items = new ArrayList<>();
-        Random random = new Random();
 
-        items.add(COMMON_ITEMS[0]);
+        items.add(ContentCatalog.current().getItem(ContentCatalog.current().getStapleItemId()).create());
 
         int itemCount = random.nextInt(3) + 2;
         for (int i = 0; i < itemCount; i++) {
-            items.add(createRandomItem(playerLevel));
+            items.add(createRandomItem(playerLevel, random));
         }
 
         return items;
     }
+
+    public static List<Item> getShopItems(int playerLevel, ItemDraw[] draws) {
+        List<Item> items = new ArrayList<>();
+        items.add(ContentCatalog.current().getItem(ContentCatalog.current().getStapleItemId()).create());
+        for (ItemDraw draw : draws) {
+            items.add(draw.resolve(playerLevel));
+        }
+        return items;
+    }
 }
 
 class Ability {
@@ -175,6 +185,20 @@ class Ability {
 }
 
 class Player {
+    private static final BoxTemplate LEVEL_UP = BoxTemplate.compile(ConsoleColors.GREEN, """
+            [
+            ^LEVEL UP!
+            You are now level {int}
+            Health restored to full!
+            ]""");
+    private static final BoxTemplate UPGRADES = BoxTemplate.compile(ConsoleColors.YELLOW, """
+            [
+            ^UPGRADES INCOMING!
+            Damage increased by +{int}
+            Max Health increased by +{int}
+            Defense increased by +2
+            ]""");
+
     private int health;
     private int maxHealth;
     private int level;
@@ -187,87 +211,78 @@ class Player {
     private int money;
     private int experienceToNextLevel;
     private List<String> relics;
+    private Terminal terminal;
+    private PrintStream out;
+    private Difficulty difficulty;
+
+    public Player(Terminal terminal) {
+        this(terminal, Difficulty.DEFAULT);
+    }
 
-    public Player() {
+    public Player(Terminal terminal, Difficulty difficulty) {
+        this.terminal = terminal;
+        this.difficulty = difficulty;
+        this.out = terminal.out();
         this.health = 100;
         this.maxHealth = 100;
         this.level = 1;
         this.experience = 0;
         this.experienceToNextLevel = 100;
         this.operatingSystem = "Linux";
-        this.currentWeapon = new Weapon("Basic Antivirus", 10, DefenseType.FIREWALL, 100, 1);
+        this.currentWeapon = new Weapon(ContentCatalog.current().getWeapon(ContentCatalog.current().getStartingWeaponId()));
         this.baseDefense = 8;
-        this.abilities = new ArrayList<>();
         this.inventory = new ArrayList<>();
         this.money = 100;
         this.relics = new ArrayList<>();
-        initializeStartingAbilities();
     }
 
-    private void initializeStartingAbilities() {
-        abilities.add(new Ability("Scan", "Basic scanning attack", AttackType.SCAN, 5, 2, 1));
-        abilities.add(new Ability("Patch", "Defensive move that reduces incoming damage", AttackType.PATCH, 3, 3, 1));
+    /**
+     * Abilities are not on the first screen, so the list is built on first use.
+     * It holds every ability; {@link #getAvailableAbilities()} filters by level.
+     */
+    private List<Ability> abilities() {
+        if (abilities == null) {
+            abilities = new ArrayList<>();
+            abilities.add(new Ability("Scan", "Basic scanning attack", AttackType.SCAN, 5, 2, 1));
+            abilities.add(new Ability("Patch", "Defensive move that reduces incoming damage", AttackType.PATCH, 3, 3, 1));
+            abilities.add(new Ability("Firewall", "Increases defense temporarily", AttackType.FIREWALL, 0, 4, 2));
+            abilities.add(new Ability("Antivirus", "Strong attack with chance to remove enemy buffs", AttackType.ANTIVIRUS, 15, 5, 3));
+            abilities.add(new Ability("Encryption", "Defensive move that prevents damage", AttackType.ENCRYPTION, 0, 6, 5));
+        }
+        return abilities;
     }
 
-    public void levelUp(Scanner scanner) {
+    public void levelUp() {
         this.experience -= this.experienceToNextLevel;
-        this.experienceToNextLevel = (int)(this.experienceToNextLevel * 1.2);
+        this.experienceToNextLevel = difficulty.nextExperienceThreshold(this.experienceToNextLevel);
 
         level++;
         int oldMaxHealth = maxHealth;
-        int oldDamage = currentWeapon.getPower();
+        int oldDamage = currentWeapon.getTotalPower();
 
         int damageIncrease = 3 + (level / 3);
         int healthIncrease = 20 + (level * 2);
 
-        currentWeapon = new Weapon(currentWeapon.getName(),
-                currentWeapon.getPower() + damageIncrease,
-                currentWeapon.getDefenseType(),
-                currentWeapon.getDurability(),
-                currentWeapon.getLevel());
+        currentWeapon.addBonusPower(damageIncrease);
 
         maxHealth += healthIncrease;
         health = maxHealth;
         baseDefense += 2;
 
-        unlockAbilities();
-
-        System.out.println(ConsoleColors.GREEN +
-                "╔══════════════════════════════════════╗\n" +
-                "║            LEVEL UP!                 ║\n" +
-                "║ You are now level " + String.format("%2d", level) + "               ║\n" +
-                "║ Health restored to full!             ║\n" +
-                "╚══════════════════════════════════════╝" + ConsoleColors.RESET);
-
-        System.out.println(ConsoleColors.YELLOW +
-                "╔══════════════════════════════════════╗\n" +
-                "║         UPGRADES INCOMING!           ║\n" +
-                "║ Damage increased by +" + String.format("%2d", damageIncrease) + "              ║\n" +
-                "║ Max Health increased by +" + String.format("%2d", healthIncrease) + "         ║\n" +
-                "║ Defense increased by +2              ║\n" +
-                "╚══════════════════════════════════════╝" + ConsoleColors.RESET);
-
-        System.out.println("New Stats:");
-        System.out.println("- Damage: " + oldDamage + " → " + currentWeapon.getPower());
-        System.out.println("- Max Health: " + oldMaxHealth + " → " + maxHealth);
-        System.out.println("- Base Defense: " + (baseDefense - 2) + " → " + baseDefense);
-        System.out.println("- Next level requires: " + experienceToNextLevel + " experience");
+        terminal.box().begin(LEVEL_UP).number(level).end()
+                .begin(UPGRADES).number(damageIncrease).number(healthIncrease).print(out);
 
-        sleep(3000);
-    }
+        out.println("New Stats:");
+        out.println("- Damage: " + oldDamage + " → " + currentWeapon.getTotalPower());
+        out.println("- Max Health: " + oldMaxHealth + " → " + maxHealth);
+        out.println("- Base Defense: " + (baseDefense - 2) + " → " + baseDefense);
+        out.println("- Next level requires: " + experienceToNextLevel + " experience");
 
-    private void unlockAbilities() {
-        if (level == 2) {
-            abilities.add(new Ability("Firewall", "Increases defense temporarily", AttackType.FIREWALL, 0, 4, 2));
-        } else if (level == 3) {
-            abilities.add(new Ability("Antivirus", "Strong attack with chance to remove enemy buffs", AttackType.ANTIVIRUS, 15, 5, 3));
-        } else if (level == 5) {
-            abilities.add(new Ability("Encryption", "Defensive move that prevents damage", AttackType.ENCRYPTION, 0, 6, 5));
-        }
+        sleep(3000);
     }
 
     public List<Ability> getAvailableAbilities() {
-        return abilities.stream()
+        return abilities().stream()
                 .filter(ability -> ability.getLevelRequired() <= level && ability.isReady())
                 .collect(Collectors.toList());
     }
@@ -278,7 +293,7 @@ class Player {
 
     public boolean useItem(Item item) {
         if (inventory.contains(item)) {
-            item.use(this);
+            item.use(this, out);
             if (item.isConsumable()) {
                 inventory.remove(item);
             }
@@ -300,19 +315,19 @@ class Player {
     }
 
     public void showInventory() {
-        System.out.println("=== Inventory ===");
+        out.println("=== Inventory ===");
         for (int i = 0; i < inventory.size(); i++) {
             Item item = inventory.get(i);
-            System.out.printf("%d. %s (Uses: %d)%n", i + 1, item.getName(), item.getUses());
+            out.printf("%d. %s (Uses: %d)%n", i + 1, item.getName(), item.getUses());
         }
-        System.out.println("===============");
-        System.out.println("0. Cancel");
-        System.out.print("Choose item to use (0 to cancel): ");
+        out.println("===============");
+        out.println("0. Cancel");
+        out.print("Choose item to use (0 to cancel): ");
     }
 
     public void addExperience(int exp) {
         this.experience += exp;
-        System.out.println("Gained " + exp + " experience! (" + this.experience + "/" + this.experienceToNextLevel + ")");
+        out.println("Gained " + exp + " experience! (" + this.experience + "/" + this.experienceToNextLevel + ")");
 
         while (this.experience >= this.experienceToNextLevel) {
             break;
@@ -327,31 +342,12 @@ class Player {
         relics.add(relic);
     }
 
-    public void setCurrentWeapon(Weapon weapon) {
-        this.currentWeapon = weapon;
-    }
-
-    private int getValidInput(Scanner scanner, int min, int max) {
-        while (true) {
-            try {
-                int input = scanner.nextInt();
-                if (input >= min && input <= max) {
-                    return input;
-                }
-                System.out.printf("Please enter a number between %d and %d: ", min, max);
-            } catch (Exception e) {
-                System.out.print("Please enter a valid number: ");
-                scanner.nextLine();
-            }
-        }
+    public void equipWeapon(WeaponDef template) {
+        currentWeapon.equip(template);
     }
 
     private void sleep(int milliseconds) {
-        try {
-            Thread.sleep(milliseconds);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        terminal.sleep(milliseconds);
     }
 
     public int getMoney() { return money; }
@@ -375,78 +371,55 @@ class Player {
 }
 
 class Weapon {
-    private String name;
-    private int power;
-    private DefenseType defenseType;
+    private WeaponDef template;
+    private int bonusPower;
+    private int upgradeBonus;
     private int durability;
-    private int level;
     private WeaponUpgrade upgrade;
-    private List<String> specialMoves;
 
-    public Weapon(String name, int power, DefenseType defenseType, int durability, int level) {
-        this.name = name;
-        this.power = power;
-        this.defenseType = defenseType;
-        this.durability = durability;
-        this.level = level;
+    public Weapon(WeaponDef template) {
+        equip(template);
+    }
+
+    public void equip(WeaponDef template) {
+        this.template = template;
+        this.bonusPower = 0;
+        this.upgradeBonus = 0;
+        this.durability = template.getDurability();
         this.upgrade = null;
-        this.specialMoves = initializeSpecialMoves(name);
     }
 
-    private List<String> initializeSpecialMoves(String weaponName) {
-        List<String> moves = new ArrayList<>();
-        switch (weaponName) {
-            case "Basic Antivirus" -> {
-                moves.add("Virus Scan - Deals extra damage to malware");
-                moves.add("Quick Patch - Heals 10 HP");
-            }
-            case "Advanced Firewall" -> {
-                moves.add("Barrier Shield - Blocks next attack completely");
-                moves.add("Traffic Filter - Reduces enemy damage for 3 turns");
-            }
-            case "Premium Antivirus" -> {
-                moves.add("Deep Scan - Reveals enemy weaknesses");
-                moves.add("Real-time Protection - Automatic counter-attacks");
-            }
-            case "Network Scanner" -> {
-                moves.add("Port Scan - Finds enemy vulnerabilities");
-                moves.add("Packet Analysis - Predicts enemy attacks");
-            }
-            case "Intrusion Detection" -> {
-                moves.add("Honeypot - Traps enemy for one turn");
-                moves.add("Alert System - Warns of incoming attacks");
-            }
-            case "Enterprise Firewall" -> {
-                moves.add("Deep Packet Inspection - Analyzes and counters attacks");
-                moves.add("Load Balancer - Distributes damage across multiple systems");
-            }
-            case "AI Threat Hunter" -> {
-                moves.add("Behavioral Analysis - Predicts enemy patterns");
-                moves.add("Adaptive Response - Evolves defenses in real-time");
-            }
-        }
-        return moves;
+    public void addBonusPower(int amount) {
+        this.bonusPower += amount;
     }
 
+    /** Upgrades stack; only the latest one is kept for display. */
     public void addUpgrade(WeaponUpgrade newUpgrade) {
         this.upgrade = newUpgrade;
-        this.power += newUpgrade.getBonusDamage();
+        this.upgradeBonus += newUpgrade.getBonusDamage();
     }
 
     public int getTotalPower() {
-        return upgrade != null ? power + upgrade.getBonusDamage() : power;
+        return getPower() + upgradeBonus;
     }
 
-    public String getName() { return name; }
-    public int getPower() { return power; }
-    public DefenseType getDefenseType() { return defenseType; }
+    public WeaponDef getTemplate() { return template; }
+    public int getWeaponId() { return template.getId(); }
+    public String getName() { return template.getName(); }
+    public int getPower() { return template.getPower() + bonusPower; }
+    public int getBonusPower() { return bonusPower; }
+    public DefenseType getDefenseType() { return template.getDefenseType(); }
     public int getDurability() { return durability; }
-    public int getLevel() { return level; }
+    public int getLevel() { return template.getLevel(); }
     public WeaponUpgrade getUpgrade() { return upgrade; }
-    public List<String> getSpecialMoves() { return specialMoves; }
+    public List<String> getSpecialMoves() { return template.getMoveDescriptions(); }
 
     public void reduceDurability() {
-        durability--;
+        reduceDurability(1);
+    }
+
+    public void reduceDurability(int amount) {
+        durability = Math.max(0, durability - amount);
     }
 
     public boolean isBroken() {
@@ -455,108 +428,54 @@ class Weapon {
 }
 
 enum WeaponUpgrade {
-    ENCRYPTION("Encryption Core", "Adds encryption damage over time", 15),
-    ISOLATION("Isolation Chamber", "Isolates threats, reducing their damage", 12),
-    DETECTION("Advanced Detection", "Higher chance to detect threat weaknesses", 18),
-    QUARANTINE("Quarantine System", "Can quarantine threats temporarily", 14),
-    HEURISTIC("Heuristic Analysis", "Adapts to threat patterns", 16);
-
-    private final String name;
-    private final String description;
-    private final int bonusDamage;
-
-    WeaponUpgrade(String name, String description, int bonusDamage) {
-        this.name = name;
-        this.description = description;
-        this.bonusDamage = bonusDamage;
-    }
-
-    public String getName() { return name; }
-    public String getDescription() { return description; }
-    public int getBonusDamage() { return bonusDamage; }
+    ENCRYPTION,
+    ISOLATION,
+    DETECTION,
+    QUARANTINE,
+    HEURISTIC;
+
+    public String getName() { return ContentCatalog.current().getUpgrade(this).getName(); }
+    public String getDescription() { return ContentCatalog.current().getUpgrade(this).getDescription(); }
+    public int getBonusDamage() { return ContentCatalog.current().getUpgrade(this).getBonusDamage(); }
 }
 
 enum ThreatType {
-    PHISHING("Phishing Email",
-            "A deceptive attempt to steal sensitive information by masquerading as a trusted entity.",
-            "attempts to steal credentials",
-            60, 12),
-    MALWARE("Malware",
-            "Malicious software designed to corrupt files and steal data silently.",
-            "executes malicious code",
-            70, 13),
-    SQL_INJECTION("SQL Injection",
-            "An attack that attempts to manipulate your database by injecting malicious SQL code.",
-            "injects malicious SQL commands",
-            65, 13),
-    DOS("DoS Attack",
-            "Denial of Service attack that overwhelms your system with traffic.",
-            "floods the network",
-            100, 15),
-    XSS("Cross-Site Script",
-            "Malicious script that hijacks user sessions and steals cookies.",
-            "injects malicious scripts",
-            65, 13),
-    MITM("Man in the Middle",
-            "Secretly intercepts and alters communications between systems.",
-            "intercepts network traffic",
-            75, 14),
-    ZERO_DAY("Zero Day Exploit",
-            "A previously unknown vulnerability that leaves your system exposed.",
-            "exploits unknown vulnerability",
-            100, 12),
-    ROOTKIT("Rootkit",
-            "Advanced malware that hides deep in your system to maintain unauthorized access.",
-            "attempts to gain root access",
-            80, 15),
-    RANSOMWARE("Ransomware",
-            "Malicious software that encrypts your files and demands payment.",
-            "starts encrypting files",
-            100, 15),
-    SOCIAL_ENGINEERING("Social Engineering",
-            "Psychological manipulation techniques to trick users into security mistakes.",
-            "attempts social manipulation",
-            50, 13),
-    WEAK_AUTHENTICATION("Weak Authentication",
-            "Exploits weak passwords and authentication mechanisms.",
-            "attempts password cracking",
-            55, 12),
-    INSIDER_THREAT("Insider Threat",
-            "A privileged user attempting to misuse their access.",
-            "misuses system access",
-            85, 14);
-
-    private final String name;
-    private final String description;
-    private final String attackMessage;
-    private final int baseHealth;
-    private final int baseDamage;
-
-    ThreatType(String name, String description, String attackMessage, int baseHealth, int baseDamage) {
-        this.name = name;
-        this.description = description;
-        this.attackMessage = attackMessage;
-        this.baseHealth = baseHealth;
-        this.baseDamage = baseDamage;
-    }
-
-    public String getName() { return name; }
-    public String getDescription() { return description; }
-    public String getAttackMessage() { return attackMessage; }
-    public int getBaseHealth() { return baseHealth; }
-    public int getBaseDamage() { return baseDamage; }
+    PHISHING,
+    MALWARE,
+    SQL_INJECTION,
+    DOS,
+    XSS,
+    MITM,
+    ZERO_DAY,
+    ROOTKIT,
+    RANSOMWARE,
+    SOCIAL_ENGINEERING,
+    WEAK_AUTHENTICATION,
+    INSIDER_THREAT;
+
+    public String getName() { return ContentCatalog.current().getThreat(this).getName(); }
+    public String getDescription() { return ContentCatalog.current().getThreat(this).getDescription(); }
+    public String getAttackMessage() { return ContentCatalog.current().getThreat(this).getAttackMessage(); }
+    public int getBaseHealth() { return ContentCatalog.current().getThreat(this).getBaseHealth(); }
+    public int getBaseDamage() { return ContentCatalog.current().getThreat(this).getBaseDamage(); }
 }
 
 
 class ThreatFactory {
-    private static final Random random = new Random();
+    public static final int ELITE_LEVELS = 2;
 
-    public static Threat createThreat(int playerLevel) {
+    public static Threat createThreat(int playerLevel, Random random) {
         ThreatType[] types = ThreatType.values();
-        ThreatType selectedType = types[random.nextInt(types.length)];
+        return createThreat(playerLevel, types[random.nextInt(types.length)]);
+    }
+
+    public static Threat createThreat(int playerLevel, ThreatType selectedType) {
+        return createThreat(playerLevel, selectedType, Difficulty.DEFAULT);
+    }
 
-        int health = (int)(selectedType.getBaseHealth() * (1 + 0.1 * playerLevel));
-        int damage = (int)(selectedType.getBaseDamage() * (1 + 0.1 * playerLevel));
+    public static Threat createThreat(int playerLevel, ThreatType selectedType, Difficulty difficulty) {
+        int health = difficulty.scaleThreat(selectedType.getBaseHealth(), playerLevel);
+        int damage = difficulty.scaleThreat(selectedType.getBaseDamage(), playerLevel);
 
         return new Threat(
                 selectedType.getName(),
@@ -567,6 +486,28 @@ class ThreatFactory {
         );
     }
 
+    /** A regular threat fought as if the player were {@link #ELITE_LEVELS} levels higher, worth twice the experience. */
+    public static Threat createEliteThreat(int playerLevel, ThreatType selectedType, Difficulty difficulty) {
+        int level = playerLevel + ELITE_LEVELS;
+        int health = difficulty.scaleThreat(selectedType.getBaseHealth(), level);
+        int damage = difficulty.scaleThreat(selectedType.getBaseDamage(), level);
+
+        return new Threat("ELITE: " + selectedType.getName(), health, damage,
+                2 * calculateExperienceValue(playerLevel, selectedType), selectedType);
+    }
+
+    public static Threat createBossThreat(int playerLevel, ThreatType selectedType) {
+        return createBossThreat(playerLevel, selectedType, Difficulty.DEFAULT);
+    }
+
+    public static Threat createBossThreat(int playerLevel, ThreatType selectedType, Difficulty difficulty) {
+        int health = difficulty.scaleBossHealth(selectedType.getBaseHealth(), playerLevel);
+        int damage = difficulty.scaleBossDamage(selectedType.getBaseDamage(), playerLevel);
+        int expValue = selectedType.getBaseDamage() * 10 + (playerLevel * 20);
+
+        return new Threat("BOSS: " + selectedType.getName(), health, damage, expValue, selectedType);
+    }
+
     private static int calculateExperienceValue(int playerLevel, ThreatType type) {
         return 20 + (playerLevel * 5) + (type.getBaseDamage() * 3);
     }
@@ -574,8 +515,19 @@ class ThreatFactory {
 
 
 class Threat {
+    private static final BoxTemplate INFORMATION = BoxTemplate.compile("", """
+            [
+            ^THREAT INFORMATION
+            Name: {text}
+            Health: {int}
+            Damage: {int}
+
+            {text}
+            ]""");
+
     private String name;
     private int health;
+    private int maxHealth;
     private int damage;
     private int experienceValue;
     private ThreatType threatType;
@@ -583,25 +535,15 @@ class Threat {
     public Threat(String name, int health, int damage, int experienceValue, ThreatType threatType) {
         this.name = name;
         this.health = health;
+        this.maxHealth = health;
         this.damage = damage;
         this.experienceValue = experienceValue;
         this.threatType = threatType;
     }
 
     public String getDetailedDescription() {
-        return String.format("""
-            ╔══════════════════════════════════════╗
-            ║         THREAT INFORMATION           ║
-            ║ Name: %s
-            ║ Health: %d
-            ║ Damage: %d
-            ║ 
-            ║ %s
-            ╚══════════════════════════════════════╝""",
-                name,
-                health,
-                damage,
-                threatType.getDescription());
+        return new BoxCanvas().begin(INFORMATION).text(name).number(health).number(damage)
+                .text(threatType.getDescription()).render();
     }
 
 
@@ -617,6 +559,10 @@ class Threat {
         return health;
     }
 
+    public int getMaxHealth() {
+        return maxHealth;
+    }
+
     public int getExperienceValue() {
         return experienceValue;
     }
@@ -631,159 +577,474 @@ class Threat {
 }
 
 class Game {
+    public static final String[] RELICS = {
+            "Data Encryption Relic - All attacks deal +10 damage",
+            "System Backup Relic - Restore 20 HP after each fight",
+            "Network Shield Relic - Take 25% less damage",
+            "Processing Core Relic - +50% experience gain",
+            "Security Protocol Relic - Start fights with temporary shield"
+    };
+
+    private static final int LOOKAHEAD = Integer.getInteger("zb.lookahead", 8);
+
+    private static final BoxTemplate STATUS = BoxTemplate.compile(ConsoleColors.CYAN, """
+            [
+            ^STATUS
+            Health: {int}/{int}
+            Level: {int} (EXP: {int}/{int})
+            Credits: {int}
+            Weapon: {text}
+            Next: {text}
+            ]""");
+    private static final BoxTemplate COMBAT = BoxTemplate.compile(ConsoleColors.RED, """
+            [
+            ^COMBAT
+            Threat: {text}
+            Threat HP: {int}
+            Your HP: {int}
+            ]""");
+    private static final BoxTemplate BOSS_COMBAT = BoxTemplate.compile(ConsoleColors.PURPLE, """
+            [
+            ^BOSS COMBAT
+            Boss: {text}
+            Boss HP: {int}
+            Your HP: {int}
+            ]""");
+    private static final BoxTemplate ACTIONS = BoxTemplate.compile(ConsoleColors.GREEN, """
+            [
+            ^ACTIONS
+            1. Attack
+            2. Use Item
+            3. Block
+            4. Show Stats
+            5. Special Move
+            ]""");
+    private static final BoxTemplate COMBAT_ACTION = BoxTemplate.compile(ConsoleColors.RED, """
+            [
+            ^COMBAT ACTION""");
+    private static final BoxTemplate DAMAGE_DEALT = BoxTemplate.compile("", "You deal {int} damage!");
+    private static final BoxTemplate DAMAGE_TAKEN = BoxTemplate.compile("", """
+            {text} {text}!
+            You take {int} damage!""");
+    private static final BoxTemplate DETAILED_STATUS = BoxTemplate.compile(ConsoleColors.CYAN, """
+            [
+            ^DETAILED STATUS
+            Health: {int}/{int}
+            Level: {int}
+            Experience: {int}/{int}
+            Credits: {int}
+            Weapon: {text} ({int} DMG)
+            Base Defense: {int}
+            ]""");
+    private static final BoxTemplate VICTORY = BoxTemplate.compile(ConsoleColors.GREEN, """
+            [
+            ^THREAT ELIMINATED!
+            Experience gained: {int}
+            Credits found: {int}""");
+    private static final BoxTemplate ITEM_FOUND = BoxTemplate.compile("", "Item found: {text}");
+    private static final BoxTemplate BOSS_VICTORY = BoxTemplate.compile(ConsoleColors.PURPLE, """
+            [
+            ^BOSS DEFEATED!
+            Experience gained: {int}
+            Credits found: {int}
+            ]""");
+    private static final BoxTemplate RELIC = BoxTemplate.compile(ConsoleColors.GOLD, """
+            [
+            ^RELIC ACQUIRED!
+            {text}
+            ]""");
+    private static final BoxTemplate UPGRADE_HEADER = BoxTemplate.compile(ConsoleColors.CYAN, """
+            [
+            ^CHOOSE WEAPON UPGRADE""");
+    private static final BoxTemplate UPGRADE_CHOICE = BoxTemplate.compile("", """
+            {int}. {text} (+{int} DMG)
+               {text}""");
+
     private Player player;
-    private Scanner scanner;
+    private Terminal terminal;
+    private PrintStream out;
     private Shop shop;
     private boolean gameRunning;
     private Random random;
     private int encounterCount;
+    private RunStatistics runStatistics;
+    private int fightTurns;
+    private int fightDamageTaken;
+    private int creditsEarned;
+    private GameLoopMetrics metrics;
+    private long seed;
+    private Leaderboard leaderboard;
+    private final boolean prefetch;
+    private EncounterPipeline encounters;
+    private CombatState combatState;
+    private BossState bossState;
+    private Difficulty difficulty;
+    private AchievementEngine achievements;
+    private RunMap runMap;
+    private MapNode mapPosition;
+
+    private Threat currentThreat;
 
     public Game() {
-        this.player = new Player();
-        this.scanner = new Scanner(System.in);
-        this.shop = new Shop();
+        this(Terminal.console(), System.nanoTime(), null);
+    }
+
+    public Game(Terminal terminal, long seed, RunStatistics runStatistics) {
+        this(terminal, seed, runStatistics, Difficulty.DEFAULT);
+    }
+
+    public Game(Terminal terminal, long seed, RunStatistics runStatistics, Difficulty difficulty) {
+        this(terminal, seed, runStatistics, difficulty, true);
+    }
+
+    /**
+     * With {@code prefetch} off, encounters are generated on the game's own
+     * thread; headless runs that already fill a thread pool use that.
+     */
+    public Game(Terminal terminal, long seed, RunStatistics runStatistics, Difficulty difficulty, boolean prefetch) {
+        this.terminal = terminal;
+        this.difficulty = difficulty;
+        this.out = terminal.out();
+        this.seed = seed;
+        this.runStatistics = runStatistics;
+        this.random = new Random(seed);
+        this.player = new Player(terminal, difficulty);
+        this.shop = new Shop(random);
+        this.prefetch = prefetch;
+        this.combatState = new CombatState();
+        this.bossState = new BossState();
         this.gameRunning = true;
-        this.random = new Random();
         this.encounterCount = 0;
+        this.metrics = new GameLoopMetrics(NoopMetricsRegistry.INSTANCE);
     }
 
-    public void start() {
-        System.out.println("Welcome to Cyber Defense: Roguelike!");
-        System.out.println("Defend your system against increasingly dangerous cyber threats.");
-
-        while (gameRunning && player.getHealth() > 0) {
-            showStatus();
-            encounterCount++;
-
-            Threat threat;
-            boolean isBoss = (encounterCount % 10 == 0);
-
-            if (isBoss) {
-                threat = createBossThreat();
-                bossEncounter(threat);
-            } else {
-                threat = ThreatFactory.createThreat(player.getLevel());
-                combat(threat);
-            }
+    public void setMetricsRegistry(MetricsRegistry registry) {
+        this.metrics = new GameLoopMetrics(registry);
+    }
 
-            if (player.getHealth() > 0) {
-                while (player.shouldLevelUp()) {
-                    player.levelUp(scanner);
-                }
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
 
-                afterCombat();
+    public void setAchievements(AchievementEngine achievements) {
+        this.achievements = achievements;
+    }
+
+    /** Plays the run on a branching map instead of the fixed encounter sequence. */
+    public void setRunMap(RunMap runMap) {
+        this.runMap = runMap;
+        this.mapPosition = runMap.getStart();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public Threat getCurrentThreat() {
+        return currentThreat;
+    }
 
-                if (encounterCount % 5 == 0 && !isBoss) {
-                    visitShop();
-                } else if (random.nextInt(100) < 20) {
-                    visitShop();
+    public int getEncounterCount() {
+        return encounterCount;
+    }
+
+    public void start() {
+        out.println("Welcome to Cyber Defense: Roguelike!");
+        out.println("Defend your system against increasingly dangerous cyber threats.");
+
+        if (runMap == null) {
+            encounters = prefetch ? EncounterPipeline.background(seed, LOOKAHEAD) : EncounterPipeline.inline(seed, LOOKAHEAD);
+        }
+        try {
+            while (gameRunning && player.getHealth() > 0) {
+                RenderEvent renderEvent = metrics.startRender();
+                showStatus();
+                metrics.render(renderEvent, "status");
+                if (runMap != null) {
+                    playMapNode(chooseMapNode());
+                } else {
+                    playEncounter(encounters.next());
                 }
             }
+        } catch (NoSuchElementException e) {
+            gameRunning = false;
+            out.println("\nInput closed, ending session.");
+        } finally {
+            if (encounters != null) {
+                encounters.close();
+            }
         }
 
         if (player.getHealth() <= 0) {
-            System.out.println("\n" + ConsoleColors.RED + "GAME OVER!" + ConsoleColors.RESET);
-            System.out.println("Your system has been compromised!");
+            out.println("\n" + ConsoleColors.RED + "GAME OVER!" + ConsoleColors.RESET);
+            out.println("Your system has been compromised!");
+            recordRun();
+        }
+
+        int encountersSurvived = player.getHealth() > 0 ? encounterCount : encounterCount - 1;
+        if (runStatistics != null) {
+            runStatistics.recordRun(encountersSurvived, creditsEarned, player.getLevel());
         }
+        event(GameEvent.RUN_ENDED, null, encountersSurvived);
+        announceAchievements();
+        saveAchievements();
     }
 
-    private void showStatus() {
-        System.out.println(ConsoleColors.CYAN + """
-            ╔══════════════════════════════════════╗
-            ║              STATUS                  ║""" + ConsoleColors.RESET);
-        System.out.printf("║ Health: %d/%d              %n", player.getHealth(), player.getMaxHealth());
-        System.out.printf("║ Level: %d (EXP: %d/%d)          %n", player.getLevel(), player.getExperience(), player.getExperienceToNextLevel());
-        System.out.printf("║ Credits: %d                    %n", player.getMoney());
-        System.out.printf("║ Weapon: %s                %n", player.getCurrentWeapon().getName());
-        System.out.println(ConsoleColors.CYAN + "╚══════════════════════════════════════╝" + ConsoleColors.RESET);
+    private void event(GameEvent type, ThreatType threat, long amount) {
+        if (achievements == null) return;
+        achievements.record(type, threat, amount);
     }
 
-    private Threat createBossThreat() {
-        ThreatType[] bossTypes = {ThreatType.ZERO_DAY, ThreatType.RANSOMWARE, ThreatType.ROOTKIT};
-        ThreatType selectedType = bossTypes[random.nextInt(bossTypes.length)];
+    private void announceAchievements() {
+        if (achievements == null) return;
 
-        int health = (int)(selectedType.getBaseHealth() * 2 * (1 + 0.2 * player.getLevel()));
-        int damage = (int)(selectedType.getBaseDamage() * 1.5 * (1 + 0.15 * player.getLevel()));
-        int expValue = selectedType.getBaseDamage() * 10 + (player.getLevel() * 20);
+        AchievementDef unlocked;
+        while ((unlocked = achievements.pollUnlocked()) != null) {
+            out.println(ConsoleColors.GOLD + "★ Achievement unlocked: " + unlocked.getName() + ConsoleColors.RESET
+                    + " - " + unlocked.getDescription());
+        }
+    }
 
-        return new Threat("BOSS: " + selectedType.getName(), health, damage, expValue, selectedType);
+    private void saveAchievements() {
+        if (achievements == null) return;
+
+        try {
+            achievements.save();
+        } catch (IOException e) {
+            System.err.println("Could not save achievements: " + e.getMessage());
+        }
+    }
+
+    private void playEncounter(EncounterPlan plan) {
+        encounterCount = plan.getIndex();
+
+        Threat threat;
+        boolean isBoss = plan.isBoss();
+
+        if (isBoss) {
+            threat = ThreatFactory.createBossThreat(player.getLevel(), plan.getThreatType(), difficulty);
+            bossEncounter(threat, plan);
+        } else {
+            threat = ThreatFactory.createThreat(player.getLevel(), plan.getThreatType(), difficulty);
+            combat(threat, plan);
+        }
+
+        if (player.getHealth() > 0) {
+            levelUps();
+            afterCombat();
+
+            if (encounterCount % 5 == 0 && !isBoss) {
+                visitShop(plan);
+            } else if (random.nextInt(100) < 20) {
+                visitShop(plan);
+            }
+        }
+    }
+
+    private MapNode chooseMapNode() {
+        List<MapNode> choices = runMap.next(mapPosition);
+        if (choices.size() == 1) {
+            out.println("The path leads to: " + choices.get(0).describe());
+            return choices.get(0);
+        }
+
+        out.println("=== Choose your path ===");
+        for (int i = 0; i < choices.size(); i++) {
+            out.printf("%d. %s%n", i + 1, choices.get(i).describe());
+        }
+        out.printf("Choose path (1-%d): ", choices.size());
+        return choices.get(getValidInput(Prompt.PATH_CHOICE, 1, choices.size()) - 1);
+    }
+
+    private void playMapNode(MapNode node) {
+        mapPosition = node;
+        encounterCount = node.getDepth();
+        EncounterPlan plan = node.getPlan();
+
+        switch (node.getType()) {
+            case FIGHT -> combat(ThreatFactory.createThreat(player.getLevel(), plan.getThreatType(), difficulty), plan);
+            case ELITE -> combat(ThreatFactory.createEliteThreat(player.getLevel(), plan.getThreatType(), difficulty), plan);
+            case BOSS -> bossEncounter(ThreatFactory.createBossThreat(player.getLevel(), plan.getThreatType(), difficulty), plan);
+            case SHOP -> visitShop(plan);
+            case REST -> rest();
+            case EVENT -> mapEvent(node);
+            case START -> { }
+        }
+
+        if (player.getHealth() > 0) {
+            levelUps();
+            if (node.getType() == NodeType.FIGHT || node.getType() == NodeType.ELITE) {
+                afterCombat();
+            }
+        }
+    }
+
+    private void rest() {
+        int healAmount = player.getMaxHealth() * 3 / 10;
+        player.heal(healAmount);
+        out.printf("You rest and patch your systems. Current HP: %d/%d%n", player.getHealth(), player.getMaxHealth());
+        sleep(1500);
+    }
+
+    private void mapEvent(MapNode node) {
+        EncounterPlan plan = node.getPlan();
+        int roll = node.getEventRoll();
+        if (roll < 40) {
+            player.addMoney(plan.getCreditsFound());
+            creditsEarned += plan.getCreditsFound();
+            event(GameEvent.CREDITS_EARNED, null, plan.getCreditsFound());
+            out.printf("You find an unencrypted wallet backup: %d credits!%n", plan.getCreditsFound());
+        } else if (roll < 70) {
+            Item item = plan.getShopStock()[0].resolve(player.getLevel());
+            player.addItem(item);
+            out.println("An abandoned toolkit holds a " + item.getName() + "!");
+        } else {
+            int damage = Math.min(player.getHealth() - 1, player.getMaxHealth() / 10);
+            player.takeDamage(damage);
+            out.printf("A phishing link slips through your filters! You take %d damage.%n", damage);
+        }
+        sleep(1500);
     }
 
-    private void bossEncounter(Threat boss) {
-        System.out.println("\n" + ConsoleColors.PURPLE + "🔥 BOSS ENCOUNTER! 🔥" + ConsoleColors.RESET);
-        System.out.println(ConsoleColors.PURPLE + boss.getName() + " has appeared!" + ConsoleColors.RESET);
+    private void levelUps() {
+        while (player.shouldLevelUp()) {
+            LevelUpEvent levelUpEvent = metrics.startLevelUp();
+            player.levelUp();
+            metrics.levelUp(levelUpEvent, player.getLevel());
+            event(GameEvent.LEVEL_REACHED, null, player.getLevel());
+        }
+        announceAchievements();
+    }
+
+    private void recordRun() {
+        if (leaderboard == null) return;
+
+        RunRecord record = new RunRecord(seed, encounterCount - 1, player.getLevel(),
+                player.getRelics(), player.getCurrentWeapon().getName(), System.currentTimeMillis());
+        try {
+            leaderboard.record(record);
+        } catch (IOException e) {
+            System.err.println("Could not save score: " + e.getMessage());
+            return;
+        }
+
+        out.println("\n=== Top runs for seed " + seed + " ===");
+        List<RunRecord> top = leaderboard.topForSeed(seed, 5);
+        for (int i = 0; i < top.size(); i++) {
+            RunRecord entry = top.get(i);
+            out.printf("%d. %d encounters, level %d, %s%n",
+                    i + 1, entry.getEncountersCleared(), entry.getLevel(), entry.getWeapon());
+        }
+    }
+
+    private void showStatus() {
+        terminal.box().begin(STATUS)
+                .number(player.getHealth()).number(player.getMaxHealth())
+                .number(player.getLevel()).number(player.getExperience()).number(player.getExperienceToNextLevel())
+                .number(player.getMoney())
+                .text(player.getCurrentWeapon().getName())
+                .text(describeUpcoming())
+                .print(out);
+    }
+
+    private String describeUpcoming() {
+        if (runMap != null) {
+            int depth = mapPosition.getDepth();
+            return "Depth " + depth + ", boss at depth " + (depth / RunMap.BOSS_INTERVAL + 1) * RunMap.BOSS_INTERVAL;
+        }
+
+        StringBuilder upcoming = new StringBuilder();
+        for (EncounterPlan plan : encounters.upcoming(3)) {
+            if (upcoming.length() > 0) upcoming.append(", ");
+            upcoming.append(plan.isBoss() ? "BOSS: " : "").append(plan.getThreatType().getName());
+        }
+        return upcoming.toString();
+    }
+
+    private void bossEncounter(Threat boss, EncounterPlan plan) {
+        out.println("\n" + ConsoleColors.PURPLE + "🔥 BOSS ENCOUNTER! 🔥" + ConsoleColors.RESET);
+        out.println(ConsoleColors.PURPLE + boss.getName() + " has appeared!" + ConsoleColors.RESET);
         sleep(3000);
 
         bossCombat(boss);
 
         if (boss.getHealth() <= 0) {
-            showBossVictory(boss);
-            giveRelic();
-            chooseWeaponUpgrade();
+            showBossVictory(boss, plan);
+            giveRelic(plan);
+            chooseWeaponUpgrade(plan);
         }
     }
 
-    private void combat(Threat threat) {
-        System.out.println("\n" + ConsoleColors.RED + "⚠ Alert! " + threat.getName() + " detected! ⚠" + ConsoleColors.RESET);
+    private void combat(Threat threat, EncounterPlan plan) {
+        out.println("\n" + ConsoleColors.RED + "⚠ Alert! " + threat.getName() + " detected! ⚠" + ConsoleColors.RESET);
         sleep(3000);
 
+        startFight(threat);
         while (threat.getHealth() > 0 && player.getHealth() > 0) {
+            RenderEvent renderEvent = metrics.startRender();
             clearScreen();
             showCombatInterface(threat);
-            int choice = getValidInput(1, 4);
+            metrics.render(renderEvent, "combat");
+            int choice = getValidInput(Prompt.COMBAT_ACTION, 1, 5);
+            CombatTurnEvent turnEvent = metrics.startTurn();
             handleCombatAction(choice, threat);
+            metrics.combatTurn(turnEvent, threat, choice);
         }
+        endFight(threat);
 
         if (threat.getHealth() <= 0) {
-            showVictory(threat);
+            showVictory(threat, plan);
         }
     }
 
     private void bossCombat(Threat threat) {
+        startFight(threat);
+        BossScript script = ContentCatalog.current().getBossScript(threat.getThreatType());
+        if (script != null) {
+            bossState.begin(script);
+            out.println(ConsoleColors.PURPLE + "Phase: " + bossState.getPhaseName() + ConsoleColors.RESET);
+        }
         while (threat.getHealth() > 0 && player.getHealth() > 0) {
+            RenderEvent renderEvent = metrics.startRender();
             clearScreen();
             showBossCombatInterface(threat);
-            int choice = getValidInput(1, 4);
+            metrics.render(renderEvent, "boss-combat");
+            int choice = getValidInput(Prompt.COMBAT_ACTION, 1, 5);
+            CombatTurnEvent turnEvent = metrics.startTurn();
             handleCombatAction(choice, threat);
+            metrics.combatTurn(turnEvent, threat, choice);
+        }
+        endFight(threat);
+    }
+
+    private void startFight(Threat threat) {
+        currentThreat = threat;
+        combatState.reset();
+        fightTurns = 0;
+        fightDamageTaken = 0;
+        event(GameEvent.FIGHT_STARTED, threat.getThreatType(), 1);
+    }
+
+    private void endFight(Threat threat) {
+        currentThreat = null;
+        bossState.end();
+        if (runStatistics != null) {
+            runStatistics.recordFight(threat.getThreatType(), fightTurns, fightDamageTaken);
         }
     }
 
     private void showCombatInterface(Threat threat) {
-        System.out.println(ConsoleColors.RED + """
-            ╔══════════════════════════════════════╗
-            ║              COMBAT                  ║""" + ConsoleColors.RESET);
-        System.out.printf("║ Threat: %s              %n", threat.getName());
-        System.out.printf("║ Threat HP: %d                %n", threat.getHealth());
-        System.out.printf("║ Your HP: %d                  %n", player.getHealth());
-        System.out.println(ConsoleColors.RED + "╚══════════════════════════════════════╝" + ConsoleColors.RESET);
-
-        System.out.println(ConsoleColors.GREEN + """
-            ╔══════════════════════════════════════╗
-            ║            ACTIONS                   ║
-            ║ 1. Attack                           ║
-            ║ 2. Use Item                         ║
-            ║ 3. Block                            ║
-            ║ 4. Show Stats                       ║
-            ╚══════════════════════════════════════╝""" + ConsoleColors.RESET);
+        terminal.box().begin(COMBAT).text(threat.getName()).number(threat.getHealth()).number(player.getHealth())
+                .end().begin(ACTIONS).print(out);
     }
 
     private void showBossCombatInterface(Threat threat) {
-        System.out.println(ConsoleColors.PURPLE + """
-            ╔══════════════════════════════════════╗
-            ║            BOSS COMBAT               ║""" + ConsoleColors.RESET);
-        System.out.printf("║ Boss: %s              %n", threat.getName());
-        System.out.printf("║ Boss HP: %d                %n", threat.getHealth());
-        System.out.printf("║ Your HP: %d                  %n", player.getHealth());
-        System.out.println(ConsoleColors.PURPLE + "╚══════════════════════════════════════╝" + ConsoleColors.RESET);
-
-        System.out.println(ConsoleColors.GREEN + """
-            ╔══════════════════════════════════════╗
-            ║            ACTIONS                   ║
-            ║ 1. Attack                           ║
-            ║ 2. Use Item                         ║
-            ║ 3. Block                            ║
-            ║ 4. Show Stats                       ║
-            ╚══════════════════════════════════════╝""" + ConsoleColors.RESET);
+        terminal.box().begin(BOSS_COMBAT).text(threat.getName()).number(threat.getHealth()).number(player.getHealth())
+                .end().begin(ACTIONS).print(out);
     }
 
     private void handleCombatAction(int choice, Threat threat) {
@@ -792,332 +1053,449 @@ class Game {
             case 2 -> useItem();
             case 3 -> block(threat);
             case 4 -> showDetailedStats();
+            case 5 -> useSpecialMove(threat);
         }
     }
 
     private void attack(Threat threat) {
-        int damageDealt = player.getCurrentWeapon().getPower();
+        Weapon weapon = player.getCurrentWeapon();
+        int damageDealt = bossState.outgoingDamage(
+                combatState.amplify(weapon.isBroken() ? weapon.getTotalPower() / 2 : weapon.getTotalPower()));
+        weapon.reduceDurability();
         threat.takeDamage(damageDealt);
+        event(GameEvent.ATTACK, threat.getThreatType(), 1);
+        event(GameEvent.DAMAGE_DEALT, threat.getThreatType(), damageDealt);
 
         int damageTaken = 0;
         if (threat.getHealth() > 0) {
-            damageTaken = Math.max(0, threat.getDamage() - player.getBaseDefense());
-            player.takeDamage(damageTaken);
+            damageTaken = threatTurn(threat, Math.max(0, threat.getDamage() - player.getBaseDefense()));
         }
+        fightTurns++;
+        fightDamageTaken += damageTaken;
 
         showCombatAction(threat, damageDealt, damageTaken);
+        if (weapon.isBroken()) {
+            out.println(weapon.getName() + " is broken and deals half damage!");
+        }
         sleep(1500);
     }
 
+    private void useSpecialMove(Threat threat) {
+        Weapon weapon = player.getCurrentWeapon();
+        List<String> moves = weapon.getSpecialMoves();
+        if (moves.isEmpty() || weapon.isBroken()) {
+            out.println(weapon.isBroken() ? "Your weapon is broken!" : "This weapon has no special moves!");
+            sleep(1500);
+            return;
+        }
+
+        out.println("=== Special Moves (Durability: " + weapon.getDurability() + ") ===");
+        for (int i = 0; i < moves.size(); i++) {
+            String cooldown = combatState.isReady(i) ? "" : " (ready in " + combatState.getCooldown(i) + ")";
+            out.printf("%d. %s%s%n", i + 1, moves.get(i), cooldown);
+        }
+        out.println("0. Cancel");
+        out.print("Choose move (0 to cancel): ");
+        int slot = getValidInput(Prompt.MOVE_CHOICE, 0, moves.size()) - 1;
+        if (slot < 0) return;
+        if (!combatState.isReady(slot)) {
+            out.println("That move is not ready yet!");
+            sleep(1500);
+            return;
+        }
+
+        MoveTable moveTable = weapon.getTemplate().getMoveTable();
+        int damageDealt = bossState.outgoingDamage(
+                combatState.amplify(moveTable.damage(slot, weapon.getTotalPower(), threat.getThreatType())));
+        int heal = moveTable.get(slot, MoveStat.HEAL);
+        threat.takeDamage(damageDealt);
+        player.heal(heal);
+        weapon.reduceDurability(moveTable.get(slot, MoveStat.WEAR));
+        combatState.apply(moveTable, slot);
+        event(GameEvent.SPECIAL_MOVE, threat.getThreatType(), 1);
+        event(GameEvent.DAMAGE_DEALT, threat.getThreatType(), damageDealt);
+        out.println("You use " + weapon.getTemplate().getMoves().get(slot).getName() + "!");
+        if (heal > 0) {
+            out.println("Restored " + heal + " health points!");
+        }
+
+        int damageTaken = 0;
+        if (threat.getHealth() > 0) {
+            damageTaken = threatTurn(threat, Math.max(0, threat.getDamage() - player.getBaseDefense()));
+        }
+        fightTurns++;
+        fightDamageTaken += damageTaken;
+
+        showCombatAction(threat, damageDealt, damageTaken);
+        sleep(1500);
+    }
+
+    private int threatTurn(Threat threat, int incomingDamage) {
+        int damageTaken = 0;
+        if (combatState.consumeStun()) {
+            out.println(threat.getName() + " is trapped and cannot act!");
+        } else if (combatState.consumeBlock()) {
+            out.println("Your shield absorbs the attack!");
+        } else {
+            damageTaken = combatState.reduce(bossState.incomingDamage(incomingDamage));
+            player.takeDamage(damageTaken);
+            if (damageTaken > 0) {
+                event(GameEvent.DAMAGE_TAKEN, threat.getThreatType(), damageTaken);
+            }
+
+            int counter = combatState.counterDamage(player.getCurrentWeapon().getTotalPower());
+            if (counter > 0) {
+                threat.takeDamage(counter);
+                event(GameEvent.DAMAGE_DEALT, threat.getThreatType(), counter);
+                out.println("Counter-attack deals " + counter + " damage!");
+            }
+        }
+        combatState.endTurn();
+        announceBossEvents(bossState.advance(threat.getHealth(), threat.getMaxHealth()));
+        return damageTaken;
+    }
+
+    private void announceBossEvents(int events) {
+        if (events == 0) return;
+
+        if ((events & BossState.PHASE_CHANGED) != 0) {
+            out.println(ConsoleColors.PURPLE + "The boss shifts tactics! Phase: " + bossState.getPhaseName() + ConsoleColors.RESET);
+        }
+        if ((events & BossState.ENRAGED) != 0) {
+            out.println(ConsoleColors.RED + "The boss is enraged!" + ConsoleColors.RESET);
+        }
+        if ((events & BossState.ENCRYPTED) != 0) {
+            out.printf("Your files are encrypted! -%d%% damage and items locked.%n", bossState.getEncryptPercent());
+        }
+        if ((events & BossState.SUMMONED) != 0) {
+            out.printf("A %s joins the fight! (%d active)%n", bossState.getSummonName(), bossState.getActiveAdds());
+        }
+    }
+
     private void showCombatAction(Threat threat, int damageDealt, int damageTaken) {
         String color = threat.getName().startsWith("BOSS:") ? ConsoleColors.PURPLE : ConsoleColors.RED;
-
-        System.out.println(color + """
-            ╔══════════════════════════════════════╗
-            ║           COMBAT ACTION              ║""" + ConsoleColors.RESET);
+        BoxCanvas box = terminal.box().begin(COMBAT_ACTION, color).end();
 
         if (damageDealt > 0) {
-            System.out.printf("║ You deal %d damage!%n", damageDealt);
+            box.begin(DAMAGE_DEALT).number(damageDealt).end();
         }
 
         if (damageTaken > 0) {
-            System.out.printf("║ %s %s!%n", threat.getName(), threat.getThreatType().getAttackMessage());
-            System.out.printf("║ You take %d damage!%n", damageTaken);
+            box.begin(DAMAGE_TAKEN).text(threat.getName()).text(threat.getThreatType().getAttackMessage())
+                    .number(damageTaken).end();
         }
 
-        System.out.println(color + "╚══════════════════════════════════════╝" + ConsoleColors.RESET);
+        box.begin(BoxTemplate.END).print(out);
     }
 
     private void useItem() {
+        if (bossState.itemsLocked()) {
+            out.println("Your items are encrypted and cannot be used!");
+            sleep(1500);
+            return;
+        }
         if (player.getInventory().isEmpty()) {
-            System.out.println("No items in inventory!");
+            out.println("No items in inventory!");
             sleep(3000);
             return;
         }
 
         player.showInventory();
-        int choice = getValidInput(0, player.getInventory().size());
+        int choice = getValidInput(Prompt.ITEM_CHOICE, 0, player.getInventory().size());
 
         if (choice > 0) {
             Item item = player.getInventory().get(choice - 1);
             player.useItem(item);
+            event(GameEvent.ITEM_USED, currentThreat == null ? null : currentThreat.getThreatType(), 1);
         }
     }
 
     private void block(Threat threat) {
-        System.out.println("You prepare to block the incoming attack!");
-        int reducedDamage = Math.max(0, (threat.getDamage() / 2) - player.getBaseDefense());
-        player.takeDamage(reducedDamage);
-        System.out.printf("You blocked some damage! Took %d damage instead.%n", reducedDamage);
+        out.println("You prepare to block the incoming attack!");
+        event(GameEvent.BLOCK, threat.getThreatType(), 1);
+        int reducedDamage = threatTurn(threat, Math.max(0, (threat.getDamage() / 2) - player.getBaseDefense()));
+        fightTurns++;
+        fightDamageTaken += reducedDamage;
+        out.printf("You blocked some damage! Took %d damage instead.%n", reducedDamage);
         sleep(2000);
     }
 
     private void showDetailedStats() {
-        System.out.println(ConsoleColors.CYAN + """
-            ╔══════════════════════════════════════╗
-            ║          DETAILED STATUS             ║""" + ConsoleColors.RESET);
-        System.out.printf("║ Health: %d/%d              %n", player.getHealth(), player.getMaxHealth());
-        System.out.printf("║ Level: %d                      %n", player.getLevel());
-        System.out.printf("║ Experience: %d/%d              %n", player.getExperience(), player.getExperienceToNextLevel());
-        System.out.printf("║ Credits: %d                    %n", player.getMoney());
-        System.out.printf("║ Weapon: %s (%d DMG)           %n", player.getCurrentWeapon().getName(), player.getCurrentWeapon().getPower());
-        System.out.printf("║ Base Defense: %d               %n", player.getBaseDefense());
-        System.out.println(ConsoleColors.CYAN + "╚══════════════════════════════════════╝" + ConsoleColors.RESET);
+        terminal.box().begin(DETAILED_STATUS)
+                .number(player.getHealth()).number(player.getMaxHealth())
+                .number(player.getLevel())
+                .number(player.getExperience()).number(player.getExperienceToNextLevel())
+                .number(player.getMoney())
+                .text(player.getCurrentWeapon().getName()).number(player.getCurrentWeapon().getTotalPower())
+                .number(player.getBaseDefense())
+                .print(out);
         sleep(5000);
     }
 
-    private void showVictory(Threat threat) {
-        System.out.println(ConsoleColors.GREEN + """
-            ╔══════════════════════════════════════╗
-            ║         THREAT ELIMINATED!           ║""" + ConsoleColors.RESET);
-        System.out.printf("║ Experience gained: %d           %n", threat.getExperienceValue());
-
-        int creditsFound = 10 + random.nextInt(60);
+    private void showVictory(Threat threat, EncounterPlan plan) {
+        int creditsFound = plan.getCreditsFound();
         player.addMoney(creditsFound);
-        System.out.printf("║ Credits found: %d              %n", creditsFound);
+        creditsEarned += creditsFound;
+        event(GameEvent.THREAT_DEFEATED, threat.getThreatType(), 1);
+        event(GameEvent.CREDITS_EARNED, null, creditsFound);
+        BoxCanvas box = terminal.box().begin(VICTORY).number(threat.getExperienceValue()).number(creditsFound).end();
 
-        if (random.nextInt(100) < 25) {
-            Item droppedItem = ItemFactory.createRandomItem(player.getLevel());
+        if (plan.getDrop() != null) {
+            Item droppedItem = plan.getDrop().resolve(player.getLevel());
             player.addItem(droppedItem);
-            System.out.printf("║ Item found: %s              %n", droppedItem.getName());
+            box.begin(ITEM_FOUND).text(droppedItem.getName()).end();
         }
 
-        System.out.println(ConsoleColors.GREEN + "╚══════════════════════════════════════╝" + ConsoleColors.RESET);
+        box.begin(BoxTemplate.END).print(out);
 
         player.addExperience(threat.getExperienceValue());
         sleep(3000);
     }
 
-    private void showBossVictory(Threat boss) {
-        System.out.println(ConsoleColors.PURPLE + """
-            ╔══════════════════════════════════════╗
-            ║          BOSS DEFEATED!              ║""" + ConsoleColors.RESET);
-        System.out.printf("║ Experience gained: %d           %n", boss.getExperienceValue());
-
-        int creditsFound = 50 + random.nextInt(100);
+    private void showBossVictory(Threat boss, EncounterPlan plan) {
+        int creditsFound = plan.getCreditsFound();
         player.addMoney(creditsFound);
-        System.out.printf("║ Credits found: %d              %n", creditsFound);
-
-        System.out.println(ConsoleColors.PURPLE + "╚══════════════════════════════════════╝" + ConsoleColors.RESET);
+        creditsEarned += creditsFound;
+        event(GameEvent.THREAT_DEFEATED, boss.getThreatType(), 1);
+        event(GameEvent.BOSS_DEFEATED, boss.getThreatType(), 1);
+        event(GameEvent.CREDITS_EARNED, null, creditsFound);
+        terminal.box().begin(BOSS_VICTORY).number(boss.getExperienceValue()).number(creditsFound).print(out);
         player.addExperience(boss.getExperienceValue());
         sleep(4000);
     }
 
-    private void giveRelic() {
-        String[] relics = {
-                "Data Encryption Relic - All attacks deal +10 damage",
-                "System Backup Relic - Restore 20 HP after each fight",
-                "Network Shield Relic - Take 25% less damage",
-                "Processing Core Relic - +50% experience gain",
-                "Security Protocol Relic - Start fights with temporary shield"
-        };
-
-        String chosenRelic = relics[random.nextInt(relics.length)];
+    private void giveRelic(EncounterPlan plan) {
+        String chosenRelic = RELICS[plan.getRelicIndex()];
         player.addRelic(chosenRelic);
 
-        System.out.println(ConsoleColors.GOLD + """
-            ╔══════════════════════════════════════╗
-            ║           RELIC ACQUIRED!            ║""" + ConsoleColors.RESET);
-        System.out.printf("║ %s%n", chosenRelic);
-        System.out.println(ConsoleColors.GOLD + "╚══════════════════════════════════════╝" + ConsoleColors.RESET);
+        terminal.box().begin(RELIC).text(chosenRelic).print(out);
         sleep(2000);
     }
 
-    private void chooseWeaponUpgrade() {
-        WeaponUpgrade[] upgrades = WeaponUpgrade.values();
-        WeaponUpgrade[] choices = new WeaponUpgrade[3];
+    private void chooseWeaponUpgrade(EncounterPlan plan) {
+        WeaponUpgrade[] choices = plan.getUpgradeChoices();
 
+        BoxCanvas box = terminal.box().begin(UPGRADE_HEADER).end();
         for (int i = 0; i < 3; i++) {
-            choices[i] = upgrades[random.nextInt(upgrades.length)];
+            box.begin(UPGRADE_CHOICE).number(i + 1).text(choices[i].getName()).number(choices[i].getBonusDamage())
+                    .text(choices[i].getDescription()).end();
         }
+        box.begin(BoxTemplate.END).print(out);
 
-        System.out.println(ConsoleColors.CYAN + """
-            ╔══════════════════════════════════════╗
-            ║        CHOOSE WEAPON UPGRADE         ║""" + ConsoleColors.RESET);
-
-        for (int i = 0; i < 3; i++) {
-            System.out.printf("║ %d. %s (+%d DMG)%n", i + 1, choices[i].getName(), choices[i].getBonusDamage());
-            System.out.printf("║    %s%n", choices[i].getDescription());
-        }
-
-        System.out.println(ConsoleColors.CYAN + "╚══════════════════════════════════════╝" + ConsoleColors.RESET);
-
-        System.out.print("Choose upgrade (1-3): ");
-        int choice = getValidInput(1, 3);
+        out.print("Choose upgrade (1-3): ");
+        int choice = getValidInput(Prompt.UPGRADE_CHOICE, 1, 3);
 
         player.getCurrentWeapon().addUpgrade(choices[choice - 1]);
-        System.out.printf("Weapon upgraded with %s!%n", choices[choice - 1].getName());
+        out.printf("Weapon upgraded with %s!%n", choices[choice - 1].getName());
         sleep(2000);
     }
 
 
     private void afterCombat() {
-        int healAmount = random.nextInt(35) + 5;
+        int healAmount = difficulty.rollHeal(random);
         player.heal(healAmount);
-        System.out.printf("You've recovered some health! Current HP: %d%n", player.getHealth());
+        out.printf("You've recovered some health! Current HP: %d%n", player.getHealth());
         sleep(1000);
     }
 
-    private void visitShop() {
-        System.out.println("\nA traveling merchant appears!");
-        shop.enterShop(player, scanner);
+    private void visitShop(EncounterPlan plan) {
+        ShopVisitEvent shopEvent = metrics.startShopVisit();
+        int creditsBefore = player.getMoney();
+        out.println("\nA traveling merchant appears!");
+        shop.restock(ItemFactory.getShopItems(player.getLevel(), plan.getShopStock()));
+        shop.enterShop(player, terminal, metrics);
+        metrics.shopVisit(shopEvent, creditsBefore, player.getMoney());
+        if (player.getMoney() < creditsBefore) {
+            event(GameEvent.CREDITS_SPENT, null, creditsBefore - player.getMoney());
+        }
+    }
+
+    private int getValidInput(Prompt prompt, int min, int max) {
+        InputWaitEvent inputEvent = metrics.startInputWait();
+        try {
+            return readValidInput(prompt, min, max);
+        } finally {
+            metrics.inputWait(inputEvent);
+        }
     }
 
-    private int getValidInput(int min, int max) {
+    private int readValidInput(Prompt prompt, int min, int max) {
         while (true) {
             try {
-                int input = scanner.nextInt();
+                int input = terminal.nextInt(prompt);
                 if (input >= min && input <= max) {
                     return input;
                 }
-                System.out.printf("Please enter a number between %d and %d: ", min, max);
+                out.printf("Please enter a number between %d and %d: ", min, max);
             } catch (InputMismatchException e) {
-                System.out.print("Please enter a valid number: ");
-                scanner.nextLine();
+                out.print("Please enter a valid number: ");
+                terminal.skipLine();
             }
         }
     }
 
     private void sleep(int milliseconds) {
-        try {
-            Thread.sleep(milliseconds);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        PacingEvent pacingEvent = metrics.startPacing();
+        terminal.sleep(milliseconds);
+        metrics.pacing(pacingEvent);
     }
 
     private void clearScreen() {
         for (int i = 0; i < 50; i++) {
-            System.out.println();
+            out.println();
         }
     }
 }
 
 
 class Shop {
+    private static final BoxTemplate HEADER = BoxTemplate.compile(ConsoleColors.CYAN, """
+            [
+            ^SHOP INVENTORY""");
+    private static final BoxTemplate ITEM = BoxTemplate.compile("", """
+            {int}. {text:20} {int} credits
+               {text}""");
+    private static final BoxTemplate WEAPON = BoxTemplate.compile("", """
+            {int}. {text:20} {int} credits
+               {int} DMG, Level {int} weapon{text}""");
+    private static final BoxTemplate EXIT = BoxTemplate.compile("", """
+            0. Exit Shop
+            ]""");
+
     private List<Item> inventory;
-    private List<Weapon> weaponInventory;
-    private Random random = new Random();
+    private List<WeaponDef> weaponInventory;
+    private Random random;
+    private ShopEconomy economy;
 
-    public Shop() {
+    public Shop(Random random) {
+        this.random = random;
+        this.economy = new ShopEconomy();
         this.inventory = new ArrayList<>();
-        this.weaponInventory = new ArrayList<>();
         generateInventory();
     }
 
     private void generateInventory() {
-        inventory.addAll(ItemFactory.getShopItems(1));
+        inventory.addAll(ItemFactory.getShopItems(1, random));
+    }
+
+    /** Weapon stock is only needed once the player walks in, so it is resolved then. */
+    private List<WeaponDef> weapons() {
+        if (weaponInventory == null) {
+            ContentCatalog catalog = ContentCatalog.current();
+            weaponInventory = new ArrayList<>();
+            for (int weaponId : catalog.getShopWeaponIds()) {
+                weaponInventory.add(catalog.getWeapon(weaponId));
+            }
+        }
+        return weaponInventory;
+    }
+
+    public void restock(List<Item> items) {
+        inventory.clear();
+        inventory.addAll(items);
+    }
 
-        weaponInventory.add(new Weapon("Advanced Firewall", 18, DefenseType.FIREWALL, 150, 2));
-        weaponInventory.add(new Weapon("Premium Antivirus", 22, DefenseType.ANTIVIRUS, 120, 2));
-        weaponInventory.add(new Weapon("Enterprise Firewall", 30, DefenseType.FIREWALL, 200, 4));
+    public void enterShop(Player player, Terminal terminal) {
+        enterShop(player, terminal, new GameLoopMetrics(NoopMetricsRegistry.INSTANCE));
     }
 
-    public void enterShop(Player player, Scanner scanner) {
+    public void enterShop(Player player, Terminal terminal, GameLoopMetrics metrics) {
+        PrintStream out = terminal.out();
+        List<WeaponDef> weaponInventory = weapons();
+        PriceIndex prices = economy.price(inventory, weaponInventory, player);
         boolean shopping = true;
 
         while (shopping) {
-            showShopInterface(player);
-            System.out.print("Enter the number of the item to purchase (0 to exit): ");
+            showShopInterface(player, terminal, prices);
+            out.print("Enter the number of the item to purchase (0 to exit): ");
 
             try {
-                int choice = scanner.nextInt();
+                InputWaitEvent inputEvent = metrics.startInputWait();
+                int choice;
+                try {
+                    choice = terminal.nextInt(Prompt.SHOP_PURCHASE);
+                } finally {
+                    metrics.inputWait(inputEvent);
+                }
                 if (choice == 0) {
                     shopping = false;
-                } else if (choice <= inventory.size()) {
+                } else if (choice > 0 && choice <= inventory.size()) {
                     Item item = inventory.get(choice - 1);
-                    if (player.getMoney() >= item.getPrice()) {
-                        player.spendMoney(item.getPrice());
+                    int price = prices.getItemPrice(choice - 1);
+                    if (player.spendMoney(price)) {
                         player.addItem(item);
-                        System.out.println("Purchased " + item.getName() + "!");
+                        economy.recordItemPurchase(item);
+                        out.println("Purchased " + item.getName() + "!");
                     } else {
-                        System.out.println("Not enough credits!");
+                        out.println("Not enough credits!");
                     }
-                } else if (choice <= inventory.size() + weaponInventory.size()) {
-                    Weapon weapon = weaponInventory.get(choice - inventory.size() - 1);
-                    int weaponPrice = weapon.getPower() * 15;
-                    if (player.getMoney() >= weaponPrice && weapon.getLevel() <= player.getLevel()) {
-                        player.spendMoney(weaponPrice);
-                        player.setCurrentWeapon(weapon);
-                        System.out.println("Purchased " + weapon.getName() + "!");
-                        System.out.println("Special moves available:");
-                        for (String move : weapon.getSpecialMoves()) {
-                            System.out.println("  " + move);
+                } else if (choice > 0 && choice <= inventory.size() + weaponInventory.size()) {
+                    int slot = choice - inventory.size() - 1;
+                    WeaponDef weapon = weaponInventory.get(slot);
+                    if (!prices.isWeaponEligible(slot)) {
+                        out.println("You need to be level " + weapon.getLevel() + " to use this weapon!");
+                    } else if (player.spendMoney(prices.getWeaponPrice(slot))) {
+                        player.equipWeapon(weapon);
+                        economy.recordWeaponPurchase(weapon);
+                        out.println("Purchased " + weapon.getName() + "!");
+                        out.println("Special moves available:");
+                        for (String move : weapon.getMoveDescriptions()) {
+                            out.println("  " + move);
                         }
-                    } else if (weapon.getLevel() > player.getLevel()) {
-                        System.out.println("You need to be level " + weapon.getLevel() + " to use this weapon!");
                     } else {
-                        System.out.println("Not enough credits!");
+                        out.println("Not enough credits!");
                     }
                 } else {
-                    System.out.println("Invalid choice!");
+                    out.println("Invalid choice!");
                 }
-                sleep(1500);
-            } catch (Exception e) {
-                System.out.println("Invalid input!");
-                scanner.nextLine();
+                PacingEvent pacingEvent = metrics.startPacing();
+                terminal.sleep(1500);
+                metrics.pacing(pacingEvent);
+            } catch (InputMismatchException e) {
+                out.println("Invalid input!");
+                terminal.skipLine();
             }
         }
+        economy.endVisit();
     }
 
-    private void showShopInterface(Player player) {
-        System.out.println(ConsoleColors.CYAN + """
-            ╔══════════════════════════════════════╗
-            ║           SHOP INVENTORY             ║""" + ConsoleColors.RESET);
+    private void showShopInterface(Player player, Terminal terminal, PriceIndex prices) {
+        List<WeaponDef> weaponInventory = weapons();
+        BoxCanvas box = terminal.box().begin(HEADER).end();
 
         for (int i = 0; i < inventory.size(); i++) {
             Item item = inventory.get(i);
-            System.out.printf("║ %d. %-20s %d credits %n", i + 1, item.getName(), item.getPrice());
-            System.out.printf("║    %s%n", item.getDescription());
+            box.begin(ITEM).number(i + 1).text(item.getName()).number(prices.getItemPrice(i))
+                    .text(item.getDescription()).end();
         }
 
         for (int i = 0; i < weaponInventory.size(); i++) {
-            Weapon weapon = weaponInventory.get(i);
-            int price = weapon.getPower() * 15;
-            String levelReq = weapon.getLevel() > player.getLevel() ? " (Req: Lvl " + weapon.getLevel() + ")" : "";
-            System.out.printf("║ %d. %-20s %d credits%s %n",
-                    inventory.size() + i + 1, weapon.getName(), price, levelReq);
-            System.out.printf("║    %d DMG, Level %d weapon%n", weapon.getPower(), weapon.getLevel());
+            WeaponDef weapon = weaponInventory.get(i);
+            box.begin(WEAPON).number(inventory.size() + i + 1).text(weapon.getName()).number(prices.getWeaponPrice(i))
+                    .number(weapon.getPower()).number(weapon.getLevel())
+                    .text(prices.isWeaponEligible(i) ? "" : " (locked)").end();
         }
 
-        System.out.println("║ 0. Exit Shop");
-        System.out.println(ConsoleColors.CYAN + "╚══════════════════════════════════════╝" + ConsoleColors.RESET);
-        System.out.println("Your credits: " + player.getMoney());
+        box.begin(EXIT).print(terminal.out());
+        terminal.out().println("Your credits: " + player.getMoney());
     }
 
-    private void sleep(int milliseconds) {
-        try {
-            Thread.sleep(milliseconds);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-    }
 }
 enum DefenseType {
-    FIREWALL("Firewall", "Reduces incoming damage", 3),
-    ANTIVIRUS("Antivirus", "Deals additional damage to threats", 5),
-    IDS("Intrusion Detection", "Chance to prevent enemy special abilities", 4),
-    ENCRYPTION("Encryption", "Protects against data theft attacks", 5),
-    BACKUP("Backup System", "Recovers some HP after battle", 4),
-    ACCESS_CONTROL("Access Control", "Reduces enemy critical hit chance", 3),
-    PATCH_MANAGEMENT("Patch Management", "Increases defense against zero-day attacks", 5),
-    MONITORING("System Monitoring", "Reveals enemy weaknesses", 4),
-    AUTHENTICATION("Authentication", "Blocks certain enemy abilities", 4),
-    TRAINING("Security Training", "Increases experience gain", 3);
-
-    private final String name;
-    private final String description;
-    private final int powerLevel;
-
-    DefenseType(String name, String description, int powerLevel) {
-        this.name = name;
-        this.description = description;
-        this.powerLevel = powerLevel;
-    }
-
-    public String getName() { return name; }
-    public String getDescription() { return description; }
-    public int getPowerLevel() { return powerLevel; }
+    FIREWALL,
+    ANTIVIRUS,
+    IDS,
+    ENCRYPTION,
+    BACKUP,
+    ACCESS_CONTROL,
+    PATCH_MANAGEMENT,
+    MONITORING,
+    AUTHENTICATION,
+    TRAINING;
+
+    public String getName() { return ContentCatalog.current().getDefense(this).getName(); }
+    public String getDescription() { return ContentCatalog.current().getDefense(this).getDescription(); }
+    public int getPowerLevel() { return ContentCatalog.current().getDefense(this).getPowerLevel(); }
 }
 
 class ConsoleColors {
@@ -1133,8 +1511,116 @@ class ConsoleColors {
 }
 
 public class Main {
-    public static void main(String[] args) {
-        Game game = new Game();
+    public static void main(String[] args) throws IOException {
+        StartupTrace.mark("main");
+        Leaderboard leaderboard = openLeaderboard();
+        StartupTrace.mark("leaderboard");
+        if (hasFlag(args, "--achievements")) {
+            AchievementEngine achievements = openAchievements(parseStringFlag(args, "--profile", "default"));
+            if (achievements != null) {
+                achievements.printSummary(System.out);
+            }
+            return;
+        }
+        int serverPort = parseIntFlag(args, "--server", 8080);
+        if (serverPort >= 0) {
+            GameServer server = new GameServer(serverPort, leaderboard);
+            server.start();
+            System.out.println("Zombie-Bombie API listening on http://127.0.0.1:" + server.getPort() + "/sessions");
+            return;
+        }
+
+        int coopPlayers = parseIntFlag(args, "--coop-host", 2);
+        if (coopPlayers >= 0) {
+            int port = Math.max(0, parseIntFlag(args, "--port", 7171));
+            LockstepHost host = new LockstepHost(port, Math.max(2, Math.min(4, coopPlayers)), parseSeed(args), System.out);
+            new CoopGame(host, Terminal.console()).start();
+            return;
+        }
+        int coopPort = parseIntFlag(args, "--coop-join", 7171);
+        if (coopPort >= 0) {
+            new CoopGame(new LockstepClient(coopPort), Terminal.console()).start();
+            return;
+        }
+
+        Terminal terminal = Terminal.console();
+        SpectatorServer spectators = null;
+        int spectatorPort = parseIntFlag(args, "--spectate", 7070);
+        if (spectatorPort >= 0) {
+            spectators = new SpectatorServer(spectatorPort);
+            terminal = spectators.broadcast(new ScannerInput(new Scanner(System.in)), System.out, true);
+            System.out.println("Spectators can watch with: nc 127.0.0.1 " + spectators.getPort());
+        }
+
+        long seed = parseSeed(args);
+        Game game = new Game(terminal, seed, null);
+        if (hasFlag(args, "--map")) {
+            game.setRunMap(new RunMap(seed));
+        }
+        StartupTrace.mark("game");
+        game.setLeaderboard(leaderboard);
+        game.setAchievements(openAchievements(parseStringFlag(args, "--profile", "default")));
+        if (Boolean.getBoolean("zb.metrics")) {
+            InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+            game.setMetricsRegistry(registry);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(registry.report())));
+        }
         game.start();
+        if (spectators != null) {
+            spectators.close();
+        }
+    }
+
+    private static Leaderboard openLeaderboard() {
+        try {
+            return Leaderboard.open(GameFiles.home());
+        } catch (IOException e) {
+            System.err.println("Leaderboard unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static AchievementEngine openAchievements(String profile) {
+        try {
+            return AchievementEngine.open(AchievementEngine.profileFile(GameFiles.home(), profile));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Achievements unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean hasFlag(String[] args, String flag) {
+        for (String arg : args) {
+            if (arg.equals(flag)) return true;
+        }
+        return false;
+    }
+
+    private static String parseStringFlag(String[] args, String flag, String defaultValue) {
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals(flag)) return args[i + 1];
+        }
+        return defaultValue;
+    }
+
+    private static int parseIntFlag(String[] args, String flag, int defaultValue) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals(flag)) {
+                return i + 1 < args.length && args[i + 1].matches("\\d+") ? Integer.parseInt(args[i + 1]) : defaultValue;
+            }
+        }
+        return -1;
+    }
+
+    private static long parseSeed(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--daily")) {
+                return LocalDate.now(ZoneOffset.UTC).toEpochDay();
+            }
+            if (args[i].equals("--seed") && i + 1 < args.length) {
+                return Long.parseLong(args[i + 1]);
+            }
+        }
+        return System.nanoTime();
     }
 }
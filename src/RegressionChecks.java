@@ -0,0 +1,390 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Focused checks for paths where a bad input or a crash once lost data or
+ * killed a session. Complements the {@link TranscriptHarness}, which covers
+ * whole games; like it, the process exits with status 1 on any failure.
+ *
+ * <pre>
+ * java RegressionChecks
+ * </pre>
+ */
+class RegressionChecks {
+    interface Check {
+        void run() throws Exception;
+    }
+
+    private final Map<String, Check> checks = new LinkedHashMap<>();
+
+    private RegressionChecks() {
+        checks.put("leaderboard-torn-tail", RegressionChecks::leaderboardTornTail);
+        checks.put("leaderboard-snapshot", RegressionChecks::leaderboardSnapshot);
+        checks.put("leaderboard-seed-history", RegressionChecks::leaderboardSeedHistory);
+        checks.put("leaderboard-bad-snapshot", RegressionChecks::leaderboardBadSnapshot);
+        checks.put("content-bad-enum", RegressionChecks::contentBadEnum);
+        checks.put("shop-negative-choice", RegressionChecks::shopNegativeChoice);
+        checks.put("api-action-range", RegressionChecks::apiActionRange);
+        checks.put("api-action-prompt", RegressionChecks::apiActionPrompt);
+        checks.put("json-escapes", RegressionChecks::jsonEscapes);
+        checks.put("histogram-buckets", RegressionChecks::histogramBuckets);
+        checks.put("streaming-stats-merge", RegressionChecks::streamingStatsMerge);
+        checks.put("input-log-varints", RegressionChecks::inputLogVarints);
+        checks.put("session-finished-evict", RegressionChecks::sessionFinishedEvict);
+        checks.put("box-canvas-layout", RegressionChecks::boxCanvasLayout);
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("zb.content.noWatch", "true");
+
+        int failures = 0;
+        for (Map.Entry<String, Check> entry : new RegressionChecks().checks.entrySet()) {
+            try {
+                entry.getValue().run();
+                System.out.printf("%-28s ok%n", entry.getKey());
+            } catch (Exception | AssertionError e) {
+                System.out.printf("%-28s FAIL %s%n", entry.getKey(), e);
+                failures++;
+            }
+        }
+        System.out.println(failures == 0 ? "All checks passed." : failures + " check(s) failed.");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /** A half-written frame must not hide the runs recorded after it. */
+    private static void leaderboardTornTail() throws IOException {
+        Path directory = Files.createTempDirectory("zb-leaderboard");
+        Leaderboard.open(directory).record(run(1, 5));
+        Files.write(directory.resolve("leaderboard.log"), new byte[] {0, 0, 0, 40, 1, 2, 3},
+                StandardOpenOption.APPEND);
+
+        Leaderboard.open(directory).record(run(1, 9));
+        List<RunRecord> top = Leaderboard.open(directory).topForSeed(1, 5);
+        expect(top.size() == 2, "both runs survive a torn frame, got " + top.size());
+        expect(top.get(0).getEncountersCleared() == 9, "the later run is ranked first");
+    }
+
+    /** One run per store instance, as with one game per process, still leads to a snapshot. */
+    private static void leaderboardSnapshot() throws IOException {
+        Path directory = Files.createTempDirectory("zb-leaderboard");
+        for (int i = 0; i < 1000; i++) {
+            Leaderboard.open(directory).record(run(i, i % 50));
+        }
+        expect(Files.exists(directory.resolve("leaderboard.snapshot")), "a snapshot was written");
+        expect(Leaderboard.open(directory).top(1).get(0).getEncountersCleared() == 49, "snapshot plus tail rank the best run");
+    }
+
+    /** A seed's history outlives any number of other seeds played after it, in this process or the next. */
+    private static void leaderboardSeedHistory() throws IOException {
+        Path directory = Files.createTempDirectory("zb-leaderboard");
+        Leaderboard leaderboard = Leaderboard.open(directory);
+        leaderboard.record(run(20261019, 3));
+        leaderboard.record(run(20261019, 8));
+        expect(leaderboard.topForSeed(20261019, 5).size() == 2, "the daily seed is ranked");
+        for (int i = 0; i < Leaderboard.MAX_SEEDS + 100; i++) {
+            leaderboard.record(run(i, 1));
+            leaderboard.topForSeed(i, 5);
+        }
+        leaderboard.record(run(20261019, 5));
+
+        for (Leaderboard reader : List.of(leaderboard, Leaderboard.open(directory))) {
+            List<RunRecord> top = reader.topForSeed(20261019, 5);
+            expect(top.size() == 3, "every daily run survives, got " + top.size());
+            expect(top.get(0).getEncountersCleared() == 8, "the best daily run leads");
+        }
+    }
+
+    /** A snapshot that reads as garbage past its header is skipped in favour of the log. */
+    private static void leaderboardBadSnapshot() throws IOException {
+        Path directory = Files.createTempDirectory("zb-leaderboard");
+        for (int i = 0; i < 1000; i++) {
+            Leaderboard.open(directory).record(run(i, i % 50));
+        }
+        Path snapshot = directory.resolve("leaderboard.snapshot");
+        byte[] bytes = Files.readAllBytes(snapshot);
+        // Byte 16 starts the run count; byte 36 is the first run's weapon name, after seed, score, level and length.
+        for (int at : new int[] {16, 36}) {
+            byte[] corrupt = bytes.clone();
+            corrupt[at] = (byte) 0xFF;
+            Files.write(snapshot, corrupt);
+            List<RunRecord> top = Leaderboard.open(directory).top(1);
+            expect(top.size() == 1 && top.get(0).getEncountersCleared() == 49, "the log replays past a bad snapshot");
+        }
+    }
+
+    /** A typo in an enum field is bad content, which the reload watcher survives. */
+    private static void contentBadEnum() throws IOException {
+        expectContentError("weapons.def", "defense = FIREWALL", "defense = FIREWAL", "weapon ");
+        expectContentError("items.def", "type = HEALTH", "type = HEATH", "item ");
+        expectContentError("achievements.def", "on = BOSS_DEFEATED", "on = BOSS_DEFEAT", "achievement ");
+        expectContentError("achievements.def", "without = BLOCK", "without = BLOK", "achievement ");
+    }
+
+    private static void expectContentError(String file, String from, String to, String section) throws IOException {
+        ContentCompiler compiler = new ContentCompiler();
+        for (String name : ContentCompiler.FILES) {
+            String text = Files.readString(Paths.get("content", name), StandardCharsets.UTF_8);
+            if (name.equals(file)) {
+                expect(text.contains(from), file + " contains '" + from + "'");
+                text = text.replaceFirst(from, to);
+            }
+            compiler.parse(name, new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        }
+        try {
+            compiler.compile();
+        } catch (ContentException e) {
+            expect(e.getMessage().startsWith(section), "error names the " + section + "section: " + e.getMessage());
+            return;
+        }
+        throw new AssertionError(file + ": '" + to + "' compiled");
+    }
+
+    /** A negative answer at the shop is an invalid choice, not a crash. */
+    private static void shopNegativeChoice() throws IOException {
+        Scenario scenario = Scenario.load(Paths.get("harness", "scenarios", "shop-and-levels.script"));
+        List<Integer> answers = scenario.getAnswers();
+        GameInput input = new GameInput() {
+            private int position;
+            private boolean injected;
+
+            public int nextInt(Prompt prompt) {
+                if (prompt == Prompt.SHOP_PURCHASE && !injected) {
+                    injected = true;
+                    return -1;
+                }
+                if (position >= answers.size()) {
+                    throw new NoSuchElementException("Script finished");
+                }
+                return answers.get(position++);
+            }
+
+            public void skipLine() {
+            }
+        };
+
+        ByteArrayOutputStream transcript = new ByteArrayOutputStream();
+        new Game(new Terminal(input, new PrintStream(transcript, true, StandardCharsets.UTF_8), false),
+                scenario.getSeed(), null).start();
+        expect(transcript.toString(StandardCharsets.UTF_8).contains("Invalid choice!"), "the shop rejected -1");
+    }
+
+    /** Raw API answers outside the menu range are a bad request. */
+    private static void apiActionRange() {
+        List<Integer> values = new ArrayList<>();
+        for (Answer answer : GameServer.parseActions(List.of(1, 0, "buy:3"))) {
+            values.add(answer.getValue());
+        }
+        expect(values.equals(List.of(1, 0, 3)), "valid actions pass");
+        for (Object action : List.of(-1, GameServer.MAX_ANSWER + 1, 1.5, "buy:-2", "item:100")) {
+            try {
+                GameServer.parseActions(List.of(action));
+                throw new AssertionError(action + " was accepted");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /** A named action at the wrong prompt is refused with the rest of its batch, not read as another answer. */
+    private static void apiActionPrompt() throws IOException {
+        Path directory = Files.createTempDirectory("zb-session");
+        ExecutorService executor = Executors.newCachedThreadPool();
+        GameSession session = new GameSession("check", 7, Leaderboard.open(directory), directory.resolve("check.session"));
+        try {
+            session.start(executor);
+            Map<String, Object> start = settledState(session.settle(false));
+            expect(Prompt.COMBAT_ACTION.name().equals(start.get("prompt")), "seed 7 opens on a fight");
+            expect(((List<?>) start.get("inventory")).isEmpty(), "seed 7 starts with no items");
+
+            expectRejected(session, List.of("buy:1", "attack"));
+            expect(settledState(session.state(false)).equals(start), "a refused first action changes nothing");
+
+            // The empty inventory turns item:1's second step into a stray combat answer.
+            expectRejected(session, List.of("attack", "item:1", "attack", "attack"));
+            Map<?, ?> threat = (Map<?, ?>) settledState(session.state(false)).get("threat");
+            Map<?, ?> startThreat = (Map<?, ?>) start.get("threat");
+            expect(!threat.get("health").equals(startThreat.get("health")), "the attack before the refusal landed");
+            expect(session.apply(GameServer.parseActions(List.of("stats")), false) != null, "the session still takes actions");
+        } finally {
+            session.close();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void expectRejected(GameSession session, List<Object> actions) {
+        try {
+            session.apply(GameServer.parseActions(actions), false);
+            throw new AssertionError(actions + " was accepted");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> settledState(Map<String, Object> response) {
+        return (Map<String, Object>) response.get("state");
+    }
+
+    /** Truncated escapes and deep nesting are parse errors, which the API answers with 400. */
+    private static void jsonEscapes() {
+        expect("a\nb\u00e9".equals(Json.parse("\"a\\nb\\u00e9\"")), "escapes decode");
+        for (String text : List.of("\"abc\\", "\"\\u12", "\"\\u12\"", "\"\\uzzzz\"", "[".repeat(100_000))) {
+            try {
+                Json.parse(text);
+                throw new AssertionError(text.substring(0, Math.min(10, text.length())) + " parsed");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        Object nested = Json.parse("[".repeat(Json.MAX_DEPTH) + "]".repeat(Json.MAX_DEPTH));
+        expect(nested instanceof List, "nesting up to the limit parses");
+    }
+
+    /** Exact below 2^precision, within the bucket error above, clamped at the max, mergeable. */
+    private static void histogramBuckets() {
+        Histogram exact = new Histogram(1_000_000, 7);
+        for (int value = 0; value < 128; value++) {
+            exact.record(value);
+        }
+        expect(exact.getValueAtPercentile(50) == 63, "p50 of 0..127 is 63, got " + exact.getValueAtPercentile(50));
+        expect(exact.getValueAtPercentile(100) == 127, "p100 of 0..127 is 127");
+
+        Histogram low = new Histogram(1_000_000, 7);
+        Histogram high = new Histogram(1_000_000, 7);
+        for (int value = 1; value <= 100_000; value++) {
+            (value <= 50_000 ? low : high).record(value);
+        }
+        low.merge(high);
+        long p50 = low.getValueAtPercentile(50);
+        expect(Math.abs(p50 - 50_000) <= 50_000 / 64, "merged p50 near 50000, got " + p50);
+        expect(low.getTotalCount() == 100_000 && low.getMin() == 1 && low.getMax() == 100_000, "merged count and range");
+
+        low.record(5_000_000);
+        expect(low.getClampedCount() == 1 && low.getMax() == 1_000_000, "values above the max are clamped and counted");
+    }
+
+    /** Chan's merge of partial Welford states matches one pass over all values. */
+    private static void streamingStatsMerge() {
+        StreamingStats all = new StreamingStats();
+        StreamingStats[] parts = {new StreamingStats(), new StreamingStats(), new StreamingStats()};
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            double value = 1e6 + random.nextGaussian() * 3;
+            all.add(value);
+            parts[i % 2].add(value);
+        }
+        StreamingStats merged = new StreamingStats();
+        for (StreamingStats part : parts) {
+            merged.merge(part);
+        }
+        expect(merged.getCount() == all.getCount(), "merged count");
+        expect(Math.abs(merged.getMean() - all.getMean()) < 1e-6, "merged mean");
+        expect(Math.abs(merged.getVariance() - all.getVariance()) < 1e-6 * all.getVariance(), "merged variance");
+        expect(merged.getMin() == all.getMin() && merged.getMax() == all.getMax(), "merged range");
+    }
+
+    /** A hibernated session's answers come back exactly, including negatives and extremes. */
+    private static void inputLogVarints() throws IOException {
+        InputLog log = new InputLog();
+        int[] edges = {0, 1, -1, 63, 64, -64, -65, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int i = 0; i < 1000; i++) {
+            log.add(i < edges.length ? edges[i] : i % 7);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            log.writeTo(out);
+        }
+        InputLog read = InputLog.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        expect(read.toList().equals(log.toList()), "varint round trip");
+        expect(bytes.size() < 4 + 1000 + 64, "small answers take one byte, got " + bytes.size() + " bytes");
+    }
+
+    /** A finished session gives up its game when idle but still answers with its final state. */
+    private static void sessionFinishedEvict() throws IOException {
+        Scenario scenario = Scenario.load(Paths.get("harness", "scenarios", "early-death.script"));
+        Path directory = Files.createTempDirectory("zb-session");
+        ExecutorService executor = Executors.newCachedThreadPool();
+        GameSession session = new GameSession("check", scenario.getSeed(), Leaderboard.open(directory),
+                directory.resolve("check.session"));
+        try {
+            session.start(executor);
+            session.settle(false);
+            List<Answer> answers = new ArrayList<>();
+            for (int value : scenario.getAnswers()) {
+                answers.add(Answer.any(value));
+            }
+            session.apply(answers, false);
+            Map<String, Object> last = settledState(session.state(false));
+            expect(Boolean.TRUE.equals(last.get("gameOver")), "the scripted run ends the game");
+
+            expect(session.hibernateIfIdle(0) && session.isHibernated(), "the finished game is dropped");
+            expect(!Files.exists(directory.resolve("check.session")), "nothing is spooled for a finished game");
+            expect(settledState(session.state(true)).equals(last), "the final state is kept");
+            try {
+                session.apply(List.of(Answer.any(1)), false);
+                throw new AssertionError("a finished session took an action");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        } finally {
+            session.close();
+            executor.shutdownNow();
+        }
+    }
+
+    /** Every row is exactly the box width; fixed slots cut, trailing text wraps without losing words. */
+    private static void boxCanvasLayout() {
+        BoxTemplate template = BoxTemplate.compile(ConsoleColors.GREEN, """
+                [
+                ^TITLE
+                Name: {text:5} Lvl {int:3}
+                Note: {text}.
+                ]""");
+        String note = "a long description that does not fit on one row of the box and has to wrap twice over";
+        String box = new BoxCanvas().begin(template).text("Abcdefgh").number(7).text(note).render()
+                .replaceAll("\u001B\\[[0-9;]*m", "");
+
+        String[] lines = box.split(System.lineSeparator());
+        StringBuilder wrapped = new StringBuilder();
+        for (String line : lines) {
+            expect(line.length() == BoxTemplate.WIDTH + 2, "row is the box width: '" + line + "'");
+            if (line.contains("Note:") || (wrapped.length() > 0 && line.startsWith("║ "))) {
+                String text = line.substring(1, line.length() - 1).strip();
+                wrapped.append(wrapped.length() > 0 ? " " : "").append(text.replace("Note: ", ""));
+            }
+        }
+        expect(lines.length > 6, "the note wrapped");
+        expect(box.contains("Name: Abcd… Lvl   7"), "fixed-width slots: " + lines[2]);
+        expect(wrapped.toString().equals(note + "."), "wrapped text kept every word: " + wrapped);
+    }
+
+    private static RunRecord run(long seed, int encounters) {
+        return new RunRecord(seed, encounters, 1, List.of(), "Basic Antivirus", encounters);
+    }
+
+    static void expect(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+enum NodeType {
+    START("Start"),
+    FIGHT("Fight"),
+    ELITE("Elite"),
+    SHOP("Shop"),
+    REST("Rest site"),
+    EVENT("Unknown"),
+    BOSS("BOSS");
+
+    private final String label;
+
+    NodeType(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() { return label; }
+}
+
+/**
+ * One place on the {@link RunMap}. Everything random about it (its type, the
+ * encounter it holds and where it leads) comes from a generator seeded by the
+ * run seed and the node's position, so a node is the same however it was
+ * reached.
+ */
+class MapNode {
+    private final int depth;
+    private final int lane;
+    private final NodeType type;
+    private final EncounterPlan plan;
+    private final int eventRoll;
+    private final int[] nextLanes;
+
+    public MapNode(int depth, int lane, NodeType type, EncounterPlan plan, int eventRoll, int[] nextLanes) {
+        this.depth = depth;
+        this.lane = lane;
+        this.type = type;
+        this.plan = plan;
+        this.eventRoll = eventRoll;
+        this.nextLanes = nextLanes;
+    }
+
+    public int getDepth() { return depth; }
+    public int getLane() { return lane; }
+    public NodeType getType() { return type; }
+    public EncounterPlan getPlan() { return plan; }
+    public int getEventRoll() { return eventRoll; }
+    int[] nextLanes() { return nextLanes; }
+
+    public String describe() {
+        return switch (type) {
+            case FIGHT, ELITE, BOSS -> type.getLabel() + ": " + plan.getThreatType().getName();
+            default -> type.getLabel();
+        };
+    }
+}
+
+/**
+ * Branching map of a run: {@link #WIDTH} lanes, each node leading to one to
+ * three nodes in neighbouring lanes one step deeper. Every tenth depth is a
+ * single boss node that all lanes converge on, with a rest site just before.
+ *
+ * <p>Nodes are generated only when they become reachable, that is when the
+ * player stands on their parent, and are kept so revisiting a position (or
+ * reaching it from another parent) returns the same node. An endless run holds
+ * the explored nodes and their direct successors, nothing more.
+ */
+class RunMap {
+    public static final int WIDTH = 4;
+    public static final int BOSS_INTERVAL = 10;
+    private static final int BOSS_LANE = WIDTH / 2;
+
+    private final long seed;
+    private final Map<Long, MapNode> nodes = new HashMap<>();
+    private final MapNode start;
+
+    public RunMap(long seed) {
+        this.seed = seed;
+        this.start = new MapNode(0, BOSS_LANE, NodeType.START, null, 0, spread(random(0, BOSS_LANE)));
+    }
+
+    public MapNode getStart() {
+        return start;
+    }
+
+    /** The nodes reachable from {@code node}, generating any not seen before. */
+    public List<MapNode> next(MapNode node) {
+        int[] lanes = node.nextLanes();
+        List<MapNode> next = new ArrayList<>(lanes.length);
+        for (int lane : lanes) {
+            next.add(node(node.getDepth() + 1, lane));
+        }
+        return next;
+    }
+
+    public int getGeneratedCount() {
+        return nodes.size();
+    }
+
+    private MapNode node(int depth, int lane) {
+        return nodes.computeIfAbsent((long) depth * WIDTH + lane, key -> generate(depth, lane));
+    }
+
+    private MapNode generate(int depth, int lane) {
+        Random random = random(depth, lane);
+        NodeType type = rollType(depth, random);
+        EncounterPlan plan = EncounterPlan.generate(depth, type == NodeType.BOSS, random);
+        int eventRoll = random.nextInt(100);
+
+        int[] nextLanes;
+        if ((depth + 1) % BOSS_INTERVAL == 0) {
+            nextLanes = new int[] {BOSS_LANE};
+        } else if (type == NodeType.BOSS) {
+            nextLanes = spread(random);
+        } else {
+            nextLanes = neighbours(lane, random);
+        }
+        return new MapNode(depth, lane, type, plan, eventRoll, nextLanes);
+    }
+
+    private static NodeType rollType(int depth, Random random) {
+        if (depth % BOSS_INTERVAL == 0) return NodeType.BOSS;
+        if (depth % BOSS_INTERVAL == BOSS_INTERVAL - 1) return NodeType.REST;
+        if (depth <= 2) return NodeType.FIGHT;
+
+        int roll = random.nextInt(100);
+        if (roll < 48) return NodeType.FIGHT;
+        if (roll < 62) return depth >= 4 ? NodeType.ELITE : NodeType.FIGHT;
+        if (roll < 76) return NodeType.SHOP;
+        if (roll < 84) return NodeType.REST;
+        return NodeType.EVENT;
+    }
+
+    /** The same lane and, with some chance, each neighbouring lane. */
+    private static int[] neighbours(int lane, Random random) {
+        List<Integer> lanes = new ArrayList<>(3);
+        for (int candidate = lane - 1; candidate <= lane + 1; candidate++) {
+            if (candidate < 0 || candidate >= WIDTH) continue;
+            if (candidate == lane || random.nextInt(100) < 55) {
+                lanes.add(candidate);
+            }
+        }
+        return lanes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /** Two or three distinct lanes, in lane order, for paths fanning out of a single node. */
+    private static int[] spread(Random random) {
+        boolean[] picked = new boolean[WIDTH];
+        int count = 2 + random.nextInt(2);
+        for (int chosen = 0; chosen < count; ) {
+            int lane = random.nextInt(WIDTH);
+            if (!picked[lane]) {
+                picked[lane] = true;
+                chosen++;
+            }
+        }
+        List<Integer> lanes = new ArrayList<>(count);
+        for (int lane = 0; lane < WIDTH; lane++) {
+            if (picked[lane]) lanes.add(lane);
+        }
+        return lanes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private Random random(int depth, int lane) {
+        return new Random(seed * 0x9E3779B97F4A7C15L + depth * 0xBF58476D1CE4E5B9L + lane * 0x94D049BB133111EBL);
+    }
+}
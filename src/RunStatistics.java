@@ -0,0 +1,316 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+enum RunMetric {
+    ENCOUNTERS_SURVIVED("Encounters survived"),
+    TURNS_PER_FIGHT("Turns per fight"),
+    CREDITS_EARNED("Credits earned"),
+    LEVEL_REACHED("Level reached");
+
+    private final String name;
+
+    RunMetric(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+}
+
+/**
+ * Fixed-memory log-linear histogram in the style of HdrHistogram. Values below
+ * {@code 2^precisionBits} are counted exactly; above that every power-of-two range
+ * is split into {@code 2^(precisionBits - 1)} buckets, so the relative error stays
+ * under {@code 2^-(precisionBits - 1)}. Recording is lock-free.
+ */
+class Histogram {
+    private final int precisionBits;
+    private final int subBucketCount;
+    private final int subBucketHalfCount;
+    private final long maxValue;
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong clampedCount = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    public Histogram(long maxValue, int precisionBits) {
+        if (maxValue < 1 || precisionBits < 2 || precisionBits > 16) {
+            throw new IllegalArgumentException("Invalid histogram bounds");
+        }
+        this.precisionBits = precisionBits;
+        this.subBucketCount = 1 << precisionBits;
+        this.subBucketHalfCount = subBucketCount / 2;
+        this.maxValue = maxValue;
+        this.counts = new AtomicLongArray(indexOf(maxValue) + 1);
+    }
+
+    public void record(long value) {
+        record(value, 1);
+    }
+
+    public void record(long value, long count) {
+        long clamped = Math.max(0, value);
+        if (clamped > maxValue) {
+            clamped = maxValue;
+            clampedCount.addAndGet(count);
+        }
+        counts.addAndGet(indexOf(clamped), count);
+        totalCount.addAndGet(count);
+        min.accumulateAndGet(clamped, Math::min);
+        max.accumulateAndGet(clamped, Math::max);
+    }
+
+    public void merge(Histogram other) {
+        if (other.maxValue != maxValue || other.precisionBits != precisionBits) {
+            throw new IllegalArgumentException("Cannot merge histograms with different layouts");
+        }
+        for (int i = 0; i < counts.length(); i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        clampedCount.addAndGet(other.clampedCount.get());
+        min.accumulateAndGet(other.min.get(), Math::min);
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    public long getValueAtPercentile(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(total * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public double getMean() {
+        long total = 0;
+        double sum = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            long count = counts.get(i);
+            if (count != 0) {
+                total += count;
+                sum += count * (lowestEquivalentValue(i) + highestEquivalentValue(i)) / 2.0;
+            }
+        }
+        return total == 0 ? 0 : sum / total;
+    }
+
+    public long getTotalCount() { return totalCount.get(); }
+    public long getClampedCount() { return clampedCount.get(); }
+    public long getMin() { return totalCount.get() == 0 ? 0 : min.get(); }
+    public long getMax() { return totalCount.get() == 0 ? 0 : max.get(); }
+    public long getMaxValue() { return maxValue; }
+
+    private int indexOf(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        int bucket = (63 - Long.numberOfLeadingZeros(value)) - (precisionBits - 1);
+        int subIndex = (int) (value >>> bucket);
+        return subBucketCount + (bucket - 1) * subBucketHalfCount + (subIndex - subBucketHalfCount);
+    }
+
+    private long lowestEquivalentValue(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int offset = index - subBucketCount;
+        int bucket = offset / subBucketHalfCount + 1;
+        long subIndex = offset % subBucketHalfCount + subBucketHalfCount;
+        return subIndex << bucket;
+    }
+
+    private long highestEquivalentValue(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int offset = index - subBucketCount;
+        int bucket = offset / subBucketHalfCount + 1;
+        long subIndex = offset % subBucketHalfCount + subBucketHalfCount;
+        return ((subIndex + 1) << bucket) - 1;
+    }
+}
+
+/**
+ * Online mean/variance accumulator (Welford) that can be merged with another
+ * accumulator using Chan's parallel update. Not thread-safe on its own; see
+ * {@link RunStatistics} for the per-thread sharding.
+ */
+class StreamingStats {
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(StreamingStats other) {
+        if (other.count == 0) return;
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+            return;
+        }
+
+        long combined = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / combined;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / combined);
+        count = combined;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() { return count; }
+    public double getMean() { return mean; }
+    public double getVariance() { return count > 1 ? m2 / (count - 1) : 0; }
+    public double getStandardDeviation() { return Math.sqrt(getVariance()); }
+    public double getMin() { return count == 0 ? 0 : min; }
+    public double getMax() { return count == 0 ? 0 : max; }
+}
+
+/**
+ * Balance metrics for many runs. Histograms are shared and lock-free; the
+ * mean/variance accumulators are sharded per recording thread and merged when
+ * a summary is requested, which should happen once the simulations are done.
+ */
+class RunStatistics {
+    private static final long MAX_TRACKED_VALUE = 1_000_000;
+    private static final int PRECISION_BITS = 7;
+
+    private final Histogram[] metricHistograms = new Histogram[RunMetric.values().length];
+    private final Histogram[] damageHistograms = new Histogram[ThreatType.values().length];
+    private final List<Shard> shards = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Shard> localShard = ThreadLocal.withInitial(this::newShard);
+
+    public RunStatistics() {
+        for (int i = 0; i < metricHistograms.length; i++) {
+            metricHistograms[i] = new Histogram(MAX_TRACKED_VALUE, PRECISION_BITS);
+        }
+        for (int i = 0; i < damageHistograms.length; i++) {
+            damageHistograms[i] = new Histogram(MAX_TRACKED_VALUE, PRECISION_BITS);
+        }
+    }
+
+    public void recordFight(ThreatType type, int turns, int damageTaken) {
+        Shard shard = localShard.get();
+        metricHistograms[RunMetric.TURNS_PER_FIGHT.ordinal()].record(turns);
+        shard.metrics[RunMetric.TURNS_PER_FIGHT.ordinal()].add(turns);
+        damageHistograms[type.ordinal()].record(damageTaken);
+        shard.damage[type.ordinal()].add(damageTaken);
+    }
+
+    public void recordRun(int encountersSurvived, int creditsEarned, int levelReached) {
+        record(RunMetric.ENCOUNTERS_SURVIVED, encountersSurvived);
+        record(RunMetric.CREDITS_EARNED, creditsEarned);
+        record(RunMetric.LEVEL_REACHED, levelReached);
+    }
+
+    public void record(RunMetric metric, long value) {
+        metricHistograms[metric.ordinal()].record(value);
+        localShard.get().metrics[metric.ordinal()].add(value);
+    }
+
+    public void merge(RunStatistics other) {
+        for (int i = 0; i < metricHistograms.length; i++) {
+            metricHistograms[i].merge(other.metricHistograms[i]);
+        }
+        for (int i = 0; i < damageHistograms.length; i++) {
+            damageHistograms[i].merge(other.damageHistograms[i]);
+        }
+        Shard merged = new Shard();
+        for (int i = 0; i < merged.metrics.length; i++) {
+            merged.metrics[i] = other.getSummary(RunMetric.values()[i]);
+        }
+        for (int i = 0; i < merged.damage.length; i++) {
+            merged.damage[i] = other.getDamageSummary(ThreatType.values()[i]);
+        }
+        shards.add(merged);
+    }
+
+    public Histogram getHistogram(RunMetric metric) {
+        return metricHistograms[metric.ordinal()];
+    }
+
+    public Histogram getDamageHistogram(ThreatType type) {
+        return damageHistograms[type.ordinal()];
+    }
+
+    public StreamingStats getSummary(RunMetric metric) {
+        StreamingStats summary = new StreamingStats();
+        for (Shard shard : shards) {
+            summary.merge(shard.metrics[metric.ordinal()]);
+        }
+        return summary;
+    }
+
+    public StreamingStats getDamageSummary(ThreatType type) {
+        StreamingStats summary = new StreamingStats();
+        for (Shard shard : shards) {
+            summary.merge(shard.damage[type.ordinal()]);
+        }
+        return summary;
+    }
+
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        for (RunMetric metric : RunMetric.values()) {
+            appendLine(report, metric.getName(), getSummary(metric), getHistogram(metric));
+        }
+        for (ThreatType type : ThreatType.values()) {
+            if (getDamageHistogram(type).getTotalCount() > 0) {
+                appendLine(report, "Damage from " + type.getName(), getDamageSummary(type), getDamageHistogram(type));
+            }
+        }
+        return report.toString();
+    }
+
+    private void appendLine(StringBuilder report, String label, StreamingStats summary, Histogram histogram) {
+        report.append(String.format("%-34s n=%-8d mean=%-9.2f sd=%-9.2f p50=%-6d p90=%-6d p99=%-6d max=%d%n",
+                label, summary.getCount(), summary.getMean(), summary.getStandardDeviation(),
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+                histogram.getValueAtPercentile(99), histogram.getMax()));
+    }
+
+    private Shard newShard() {
+        Shard shard = new Shard();
+        shards.add(shard);
+        return shard;
+    }
+
+    private static class Shard {
+        private final StreamingStats[] metrics = new StreamingStats[RunMetric.values().length];
+        private final StreamingStats[] damage = new StreamingStats[ThreatType.values().length];
+
+        private Shard() {
+            for (int i = 0; i < metrics.length; i++) {
+                metrics[i] = new StreamingStats();
+            }
+            for (int i = 0; i < damage.length; i++) {
+                damage[i] = new StreamingStats();
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prices and eligibility for one shop visit, computed once when the player
+ * walks in. Slots follow the shop menu: items first, then weapons. Rendering
+ * and purchases only read from here.
+ */
+class PriceIndex {
+    private final int[] prices;
+    private final boolean[] eligible;
+    private final int itemCount;
+
+    public PriceIndex(int itemCount, int weaponCount) {
+        this.itemCount = itemCount;
+        this.prices = new int[itemCount + weaponCount];
+        this.eligible = new boolean[itemCount + weaponCount];
+    }
+
+    void set(int slot, int price, boolean isEligible) {
+        prices[slot] = price;
+        eligible[slot] = isEligible;
+    }
+
+    public int getItemPrice(int index) { return prices[index]; }
+    public int getWeaponPrice(int index) { return prices[itemCount + index]; }
+    public boolean isWeaponEligible(int index) { return eligible[itemCount + index]; }
+    public int size() { return prices.length; }
+}
+
+/**
+ * Supply and demand for one shop. Every purchase raises demand for that item
+ * or weapon, and demand relaxes back toward 1 after each visit. Several copies
+ * of the same item in one restock are sold cheaper. Demand is kept in flat
+ * arrays indexed by content id, so pricing a visit is a few multiplications
+ * per slot.
+ */
+class ShopEconomy {
+    private static final double DEMAND_STEP = 1.15;
+    private static final double DEMAND_CAP = 2.0;
+    private static final double DEMAND_DECAY = 0.7;
+    private static final double SUPPLY_DISCOUNT = 0.1;
+    private static final int WEAPON_PRICE_PER_POWER = 15;
+
+    private double[] itemDemand = new double[0];
+    private double[] weaponDemand = new double[0];
+    private int[] supply = new int[0];
+
+    public PriceIndex price(List<Item> items, List<WeaponDef> weapons, Player player) {
+        ContentCatalog catalog = ContentCatalog.current();
+        itemDemand = fit(itemDemand, catalog.getItemCount());
+        weaponDemand = fit(weaponDemand, catalog.getWeaponCount());
+        if (supply.length < itemDemand.length) {
+            supply = new int[itemDemand.length];
+        }
+
+        for (Item item : items) {
+            if (item.getItemId() >= 0) supply[item.getItemId()]++;
+        }
+
+        PriceIndex index = new PriceIndex(items.size(), weapons.size());
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            int id = item.getItemId();
+            double multiplier = id < 0 ? 1 : itemDemand[id] / (1 + SUPPLY_DISCOUNT * (supply[id] - 1));
+            index.set(i, Math.max(1, (int) Math.round(item.getPrice() * multiplier)), true);
+        }
+        for (Item item : items) {
+            if (item.getItemId() >= 0) supply[item.getItemId()] = 0;
+        }
+
+        for (int i = 0; i < weapons.size(); i++) {
+            WeaponDef weapon = weapons.get(i);
+            int price = (int) Math.round(weapon.getPower() * WEAPON_PRICE_PER_POWER * weaponDemand[weapon.getId()]);
+            index.set(items.size() + i, price, weapon.getLevel() <= player.getLevel());
+        }
+        return index;
+    }
+
+    public void recordItemPurchase(Item item) {
+        if (item.getItemId() >= 0 && item.getItemId() < itemDemand.length) {
+            itemDemand[item.getItemId()] = Math.min(DEMAND_CAP, itemDemand[item.getItemId()] * DEMAND_STEP);
+        }
+    }
+
+    public void recordWeaponPurchase(WeaponDef weapon) {
+        if (weapon.getId() < weaponDemand.length) {
+            weaponDemand[weapon.getId()] = Math.min(DEMAND_CAP, weaponDemand[weapon.getId()] * DEMAND_STEP);
+        }
+    }
+
+    /** Lets demand drift back toward list price between visits. */
+    public void endVisit() {
+        relax(itemDemand);
+        relax(weaponDemand);
+    }
+
+    public double getItemDemand(int itemId) {
+        return itemId < itemDemand.length ? itemDemand[itemId] : 1;
+    }
+
+    private static void relax(double[] demand) {
+        for (int i = 0; i < demand.length; i++) {
+            demand[i] = 1 + (demand[i] - 1) * DEMAND_DECAY;
+        }
+    }
+
+    /** Grows a demand table to the catalog size after a content reload, new ids start at list price. */
+    private static double[] fit(double[] demand, int size) {
+        if (demand.length >= size) return demand;
+
+        double[] grown = Arrays.copyOf(demand, size);
+        Arrays.fill(grown, demand.length, size, 1.0);
+        return grown;
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.NoSuchElementException;
+
+/**
+ * Scripted play styles for headless runs. {@code previousChoice} is the last
+ * answer given to the same kind of prompt (0 at first), which is how a policy
+ * alternates actions and avoids repeating one that had no effect, such as
+ * picking an item while items are locked.
+ */
+enum Policy {
+    ATTACK_ONLY {
+        int combat(Player player, int previousChoice) {
+            return 1;
+        }
+    },
+    BLOCK_HEAVY {
+        int combat(Player player, int previousChoice) {
+            if (previousChoice != 2 && healIfLow(player)) return 2;
+            return player.getHealth() * 2 < player.getMaxHealth() ? 3 : 1;
+        }
+    },
+    BALANCED {
+        int combat(Player player, int previousChoice) {
+            if (previousChoice != 2 && healIfLow(player)) return 2;
+            return previousChoice == 5 ? 1 : 5;
+        }
+    };
+
+    abstract int combat(Player player, int previousChoice);
+
+    public int choose(Prompt prompt, Game game, int previousChoice) {
+        Player player = game.getPlayer();
+        return switch (prompt) {
+            case COMBAT_ACTION -> combat(player, previousChoice);
+            case ITEM_CHOICE, UPGRADE_CHOICE, PATH_CHOICE -> 1;
+            case MOVE_CHOICE -> 1;
+            // One health pack per visit when it is affordable, then leave.
+            case SHOP_PURCHASE -> previousChoice == 0 && player.getMoney() >= 60 ? 1 : 0;
+        };
+    }
+
+    private static boolean healIfLow(Player player) {
+        return !player.getInventory().isEmpty() && player.getHealth() * 3 < player.getMaxHealth();
+    }
+}
+
+/** Answers a game's prompts from a {@link Policy} until the encounter cap is reached. */
+class BotInput implements GameInput {
+    private static final int MAX_INPUTS = 50_000;
+
+    private final Policy policy;
+    private final int encounterCap;
+    private Game game;
+    private final int[] previousChoices = new int[Prompt.values().length];
+    private int inputs;
+
+    public BotInput(Policy policy, int encounterCap) {
+        this.policy = policy;
+        this.encounterCap = encounterCap;
+    }
+
+    public void attach(Game game) {
+        this.game = game;
+    }
+
+    public int nextInt(Prompt prompt) {
+        if (game.getEncounterCount() > encounterCap || ++inputs > MAX_INPUTS) {
+            throw new NoSuchElementException("Simulation finished");
+        }
+        int choice = policy.choose(prompt, game, previousChoices[prompt.ordinal()]);
+        previousChoices[prompt.ordinal()] = choice;
+        return choice;
+    }
+
+    public void skipLine() {
+    }
+}
+
+/** One headless, unpaced, silent game played by a policy. */
+class HeadlessRun {
+    private final int encountersSurvived;
+    private final int level;
+    private final boolean won;
+
+    private HeadlessRun(int encountersSurvived, int level, boolean won) {
+        this.encountersSurvived = encountersSurvived;
+        this.level = level;
+        this.won = won;
+    }
+
+    public static HeadlessRun play(long seed, Difficulty difficulty, Policy policy, int encounterCap) {
+        BotInput input = new BotInput(policy, encounterCap);
+        Game game = new Game(new Terminal(input, Terminal.discard(), false), seed, null, difficulty, false);
+        input.attach(game);
+        game.start();
+
+        Player player = game.getPlayer();
+        boolean alive = player.getHealth() > 0;
+        int survived = Math.min(encounterCap, alive ? game.getEncounterCount() : game.getEncounterCount() - 1);
+        return new HeadlessRun(survived, player.getLevel(), alive && survived >= encounterCap);
+    }
+
+    public int getEncountersSurvived() { return encountersSurvived; }
+    public int getLevel() { return level; }
+    public boolean isWon() { return won; }
+}
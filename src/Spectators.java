@@ -0,0 +1,249 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One rendered screen, encoded once and shared by every spectator. The last
+ * frame of a game has no prompt.
+ */
+class Frame {
+    private final long sequence;
+    private final Prompt prompt;
+    private final byte[] bytes;
+
+    public Frame(long sequence, Prompt prompt, byte[] bytes) {
+        this.sequence = sequence;
+        this.prompt = prompt;
+        this.bytes = bytes;
+    }
+
+    public long getSequence() { return sequence; }
+    public Prompt getPrompt() { return prompt; }
+    public byte[] getBytes() { return bytes; }
+}
+
+/**
+ * Single-writer ring of the most recent frames. Readers keep their own cursor
+ * and never hold the writer up; a reader that falls more than a ring behind
+ * jumps straight to the latest frame. Once closed, readers drain what is left
+ * and then get {@code null}.
+ */
+class FrameRing {
+    private final Frame[] slots;
+    private final int mask;
+    private volatile long published = -1;
+    private volatile boolean closed;
+
+    public FrameRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new Frame[size];
+        this.mask = size - 1;
+    }
+
+    public void publish(Prompt prompt, byte[] bytes) {
+        long sequence = published + 1;
+        slots[(int) (sequence & mask)] = new Frame(sequence, prompt, bytes);
+        published = sequence;
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Returns the frame after {@code cursor}, or the latest frame if the reader
+     * has been lapped. Blocks until a newer frame exists, or returns
+     * {@code null} once the ring is closed and the reader has seen every frame.
+     */
+    public Frame next(long cursor) throws InterruptedException {
+        long latest = published;
+        if (latest <= cursor) {
+            synchronized (this) {
+                while ((latest = published) <= cursor) {
+                    if (closed) return null;
+                    wait();
+                }
+            }
+        }
+
+        long wanted = latest - cursor > slots.length ? latest : cursor + 1;
+        Frame frame = slots[(int) (wanted & mask)];
+        if (frame == null || frame.getSequence() != wanted) {
+            // Overwritten while we looked; the newest slot is always intact.
+            frame = slots[(int) (published & mask)];
+        }
+        return frame;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+}
+
+/** Tees game output to the player's screen while collecting the current frame. */
+class FrameCapture extends OutputStream {
+    private final OutputStream screen;
+    private final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+
+    public FrameCapture(OutputStream screen) {
+        this.screen = screen;
+    }
+
+    public synchronized void write(int b) throws IOException {
+        screen.write(b);
+        frame.write(b);
+    }
+
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        screen.write(b, off, len);
+        frame.write(b, off, len);
+    }
+
+    public synchronized void flush() throws IOException {
+        screen.flush();
+    }
+
+    public synchronized byte[] takeFrame() {
+        byte[] bytes = frame.toByteArray();
+        frame.reset();
+        return bytes;
+    }
+}
+
+/** Publishes the captured frame each time the game stops to wait for the player. */
+class BroadcastInput implements GameInput {
+    private final GameInput input;
+    private final FrameCapture capture;
+    private final FrameRing ring;
+
+    public BroadcastInput(GameInput input, FrameCapture capture, FrameRing ring) {
+        this.input = input;
+        this.capture = capture;
+        this.ring = ring;
+    }
+
+    public int nextInt(Prompt prompt) {
+        byte[] bytes = capture.takeFrame();
+        if (bytes.length > 0) {
+            ring.publish(prompt, bytes);
+        }
+        return input.nextInt(prompt);
+    }
+
+    public void skipLine() {
+        input.skipLine();
+    }
+}
+
+/**
+ * Accepts local socket spectators for one live game. Each viewer gets its own
+ * daemon thread reading the shared ring, so a slow connection only delays
+ * itself and rendering happens once regardless of audience size.
+ */
+class SpectatorServer implements AutoCloseable {
+    private static final int RING_CAPACITY = Integer.getInteger("zb.spectator.frames", 64);
+    private static final long DRAIN_MILLIS = 2_000;
+
+    private final FrameRing ring = new FrameRing(RING_CAPACITY);
+    private final ServerSocket serverSocket;
+    private final AtomicInteger viewers = new AtomicInteger();
+    private FrameCapture capture;
+
+    public SpectatorServer(int port) throws IOException {
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "spectator-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /** Wraps a terminal so everything it shows is also broadcast to spectators. */
+    public Terminal broadcast(GameInput input, OutputStream screen, boolean pacing) {
+        capture = new FrameCapture(screen);
+        return new Terminal(new BroadcastInput(input, capture, ring),
+                new PrintStream(capture, true, StandardCharsets.UTF_8), pacing);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getViewerCount() {
+        return viewers.get();
+    }
+
+    /**
+     * Publishes whatever the game printed after its last prompt (the game over
+     * screen, the leaderboard), gives viewers a moment to receive it and ends
+     * their streams.
+     */
+    public void close() throws IOException {
+        if (capture != null) {
+            byte[] bytes = capture.takeFrame();
+            if (bytes.length > 0) {
+                ring.publish(null, bytes);
+            }
+        }
+        ring.close();
+        serverSocket.close();
+
+        long deadline = System.currentTimeMillis() + DRAIN_MILLIS;
+        try {
+            while (viewers.get() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread viewer = new Thread(() -> stream(socket), "spectator-" + socket.getPort());
+                viewer.setDaemon(true);
+                viewer.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void stream(Socket socket) {
+        viewers.incrementAndGet();
+        try (socket; OutputStream out = socket.getOutputStream()) {
+            out.write(("Spectating Zombie-Bombie (" + viewers.get() + " watching)\n").getBytes(StandardCharsets.UTF_8));
+            long cursor = Math.max(-1, ring.getPublished() - 1);
+            while (true) {
+                Frame frame = ring.next(cursor);
+                if (frame == null) return;
+                if (frame.getSequence() > cursor + 1) {
+                    out.write(("\n[skipped " + (frame.getSequence() - cursor - 1) + " frames]\n").getBytes(StandardCharsets.UTF_8));
+                }
+                out.write(frame.getBytes());
+                out.flush();
+                cursor = frame.getSequence();
+            }
+        } catch (IOException | InterruptedException e) {
+            // Viewer disconnected.
+        } finally {
+            viewers.decrementAndGet();
+        }
+    }
+}
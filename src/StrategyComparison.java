@@ -0,0 +1,177 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** One side of a comparison: a play policy under a rule set. */
+class Arm {
+    private final Policy policy;
+    private final Difficulty difficulty;
+
+    public Arm(Policy policy, Difficulty difficulty) {
+        this.policy = policy;
+        this.difficulty = difficulty;
+    }
+
+    public HeadlessRun play(long seed, int encounterCap) {
+        return HeadlessRun.play(seed, difficulty, policy, encounterCap);
+    }
+
+    public String toString() {
+        return difficulty.equals(Difficulty.DEFAULT) ? policy.name() : policy.name() + " (custom rules)";
+    }
+}
+
+/**
+ * Mixture sequential probability ratio test on paired differences. The
+ * statistic may be checked after every pair without inflating the false
+ * positive rate, so a comparison stops as soon as the evidence is clear.
+ */
+class SequentialTest {
+    private static final int MIN_PAIRS = 30;
+
+    private final double alpha;
+    private final double mixtureVariance;
+    private final StreamingStats differences = new StreamingStats();
+
+    public SequentialTest(double alpha, double effectOfInterest) {
+        this.alpha = alpha;
+        this.mixtureVariance = effectOfInterest * effectOfInterest;
+    }
+
+    public void add(double difference) {
+        differences.add(difference);
+    }
+
+    /** Log of the mixture likelihood ratio for "mean difference != 0". */
+    public double logLikelihoodRatio() {
+        long n = differences.getCount();
+        double variance = Math.max(differences.getVariance(), 1e-6);
+        double mean = differences.getMean();
+        double spread = variance + n * mixtureVariance;
+        return 0.5 * Math.log(variance / spread)
+                + (double) n * n * mixtureVariance * mean * mean / (2 * variance * spread);
+    }
+
+    public boolean isSignificant() {
+        return differences.getCount() >= MIN_PAIRS && logLikelihoodRatio() >= Math.log(1 / alpha);
+    }
+
+    public long getPairs() { return differences.getCount(); }
+    public double getMeanDifference() { return differences.getMean(); }
+    public double getStandardError() {
+        return differences.getCount() > 1 ? differences.getStandardDeviation() / Math.sqrt(differences.getCount()) : 0;
+    }
+}
+
+/**
+ * Compares two policies or two rule versions with paired, seeded headless
+ * runs. Both arms play each seed, pairs are played in parallel batches, and
+ * the results are fed to a {@link SequentialTest} in seed order so the
+ * outcome does not depend on thread timing.
+ *
+ * <pre>
+ * java StrategyComparison --a BLOCK_HEAVY --b ATTACK_ONLY [--a-rules xpGrowth=1.3]
+ *                         [--b-rules ...] [--alpha 0.05] [--effect 1]
+ *                         [--max-pairs 5000] [--cap 30] [--seed 1]
+ * </pre>
+ */
+class StrategyComparison {
+    private final Arm a;
+    private final Arm b;
+    private final int encounterCap;
+    private final int maxPairs;
+    private final ExecutorService pool;
+    private final int batchSize;
+
+    public StrategyComparison(Arm a, Arm b, int encounterCap, int maxPairs, ExecutorService pool, int batchSize) {
+        this.a = a;
+        this.b = b;
+        this.encounterCap = encounterCap;
+        this.maxPairs = maxPairs;
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    public SequentialTest run(SequentialTest test, long baseSeed) throws InterruptedException {
+        Random seeds = new Random(baseSeed);
+        while (test.getPairs() < maxPairs && !test.isSignificant()) {
+            int size = (int) Math.min(batchSize, maxPairs - test.getPairs());
+            List<Future<HeadlessRun>> runsA = new ArrayList<>(size);
+            List<Future<HeadlessRun>> runsB = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                long seed = seeds.nextLong();
+                runsA.add(pool.submit(() -> a.play(seed, encounterCap)));
+                runsB.add(pool.submit(() -> b.play(seed, encounterCap)));
+            }
+
+            for (int i = 0; i < size && !test.isSignificant(); i++) {
+                test.add(join(runsA.get(i)).getEncountersSurvived() - join(runsB.get(i)).getEncountersSurvived());
+            }
+        }
+        return test;
+    }
+
+    private static HeadlessRun join(Future<HeadlessRun> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.setProperty("zb.content.noWatch", "true");
+
+        Policy policyA = Policy.BLOCK_HEAVY;
+        Policy policyB = Policy.ATTACK_ONLY;
+        Difficulty rulesA = Difficulty.DEFAULT;
+        Difficulty rulesB = Difficulty.DEFAULT;
+        double alpha = 0.05;
+        double effect = 1;
+        int maxPairs = 5000;
+        int cap = 30;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--a" -> policyA = Policy.valueOf(args[i + 1]);
+                case "--b" -> policyB = Policy.valueOf(args[i + 1]);
+                case "--a-rules" -> rulesA = Difficulty.parse(args[i + 1]);
+                case "--b-rules" -> rulesB = Difficulty.parse(args[i + 1]);
+                case "--alpha" -> alpha = Double.parseDouble(args[i + 1]);
+                case "--effect" -> effect = Double.parseDouble(args[i + 1]);
+                case "--max-pairs" -> maxPairs = Integer.parseInt(args[i + 1]);
+                case "--cap" -> cap = Integer.parseInt(args[i + 1]);
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        Arm a = new Arm(policyA, rulesA);
+        Arm b = new Arm(policyB, rulesB);
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            StrategyComparison comparison = new StrategyComparison(a, b, cap, maxPairs, pool, Math.max(16, threads * 4));
+            SequentialTest test = comparison.run(new SequentialTest(alpha, effect), seed);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.printf("A: %s%nB: %s%n", a, b);
+            System.out.printf("Pairs played: %d (%d ms)%n", test.getPairs(), millis);
+            System.out.printf("Mean encounters survived, A - B: %+.2f (standard error %.2f)%n",
+                    test.getMeanDifference(), test.getStandardError());
+            if (test.isSignificant()) {
+                System.out.printf("Significant at alpha %.3f: %s survives longer.%n",
+                        alpha, test.getMeanDifference() > 0 ? "A" : "B");
+            } else {
+                System.out.printf("No significant difference after %d pairs.%n", test.getPairs());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.InputMismatchException;
+import java.util.Locale;
+import java.util.Scanner;
+
+enum Prompt {
+    COMBAT_ACTION,
+    ITEM_CHOICE,
+    MOVE_CHOICE,
+    UPGRADE_CHOICE,
+    SHOP_PURCHASE,
+    PATH_CHOICE
+}
+
+interface GameInput {
+    /**
+     * Returns the next number typed for the given prompt. Throws
+     * {@link InputMismatchException} for input that is not a number (the caller
+     * then calls {@link #skipLine()}) and {@link java.util.NoSuchElementException}
+     * once the input is exhausted or closed.
+     */
+    int nextInt(Prompt prompt);
+
+    void skipLine();
+}
+
+class ScannerInput implements GameInput {
+    private final Scanner scanner;
+
+    public ScannerInput(Scanner scanner) {
+        this.scanner = scanner;
+    }
+
+    public int nextInt(Prompt prompt) {
+        return scanner.nextInt();
+    }
+
+    public void skipLine() {
+        scanner.nextLine();
+    }
+}
+
+/**
+ * Where a game reads its input and writes its screens. The console terminal
+ * paces the game with sleeps (unless {@code -Dzb.noPacing=true}); headless
+ * terminals turn pacing off.
+ */
+class Terminal {
+    private final GameInput input;
+    private final PrintStream out;
+    private final boolean pacing;
+    private BoxCanvas box;
+
+    public Terminal(GameInput input, PrintStream out, boolean pacing) {
+        this.input = input;
+        this.out = out;
+        this.pacing = pacing;
+    }
+
+    public static Terminal console() {
+        return new Terminal(new ScannerInput(new Scanner(System.in)), System.out, !Boolean.getBoolean("zb.noPacing"));
+    }
+
+    public static PrintStream discard() {
+        return new DiscardingPrintStream();
+    }
+
+    public PrintStream out() {
+        return out;
+    }
+
+    /** The terminal's reusable buffer for box-drawn screens. */
+    public BoxCanvas box() {
+        if (box == null) {
+            box = new BoxCanvas();
+        }
+        return box;
+    }
+
+    public int nextInt(Prompt prompt) {
+        StartupTrace.firstPrompt();
+        return input.nextInt(prompt);
+    }
+
+    public void skipLine() {
+        input.skipLine();
+    }
+
+    public void sleep(int milliseconds) {
+        if (!pacing) return;
+
+        try {
+            Thread.sleep(milliseconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
+
+/**
+ * Output for headless runs. Skips formatting entirely instead of formatting
+ * into a null stream, which otherwise dominates simulation time.
+ */
+class DiscardingPrintStream extends PrintStream {
+    public DiscardingPrintStream() {
+        super(OutputStream.nullOutputStream());
+    }
+
+    public void write(int b) {}
+    public void write(byte[] buf, int off, int len) {}
+    public void print(boolean b) {}
+    public void print(char c) {}
+    public void print(int i) {}
+    public void print(long l) {}
+    public void print(float f) {}
+    public void print(double d) {}
+    public void print(char[] s) {}
+    public void print(String s) {}
+    public void print(Object obj) {}
+    public void println() {}
+    public void println(boolean x) {}
+    public void println(char x) {}
+    public void println(int x) {}
+    public void println(long x) {}
+    public void println(float x) {}
+    public void println(double x) {}
+    public void println(char[] x) {}
+    public void println(String x) {}
+    public void println(Object x) {}
+    public PrintStream printf(String format, Object... args) { return this; }
+    public PrintStream printf(Locale l, String format, Object... args) { return this; }
+    public PrintStream format(String format, Object... args) { return this; }
+    public PrintStream format(Locale l, String format, Object... args) { return this; }
+    public PrintStream append(CharSequence csq) { return this; }
+    public PrintStream append(CharSequence csq, int start, int end) { return this; }
+    public PrintStream append(char c) { return this; }
+}
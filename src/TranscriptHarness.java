@@ -0,0 +1,281 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Replays a fixed list of answers and measures the game between them: the time
+ * from handing over one answer to being asked for the next, and the bytes
+ * written for each frame.
+ */
+class ScriptedInput implements GameInput {
+    private final List<Integer> answers;
+    private final FrameCapture capture;
+    private final Histogram turnMicros;
+    private final Histogram frameBytes;
+    private int position;
+    private long answeredAt;
+
+    public ScriptedInput(List<Integer> answers, FrameCapture capture, Histogram turnMicros, Histogram frameBytes) {
+        this.answers = answers;
+        this.capture = capture;
+        this.turnMicros = turnMicros;
+        this.frameBytes = frameBytes;
+    }
+
+    public int nextInt(Prompt prompt) {
+        long now = System.nanoTime();
+        if (answeredAt != 0) {
+            turnMicros.record((now - answeredAt) / 1000);
+        }
+        frameBytes.record(capture.takeFrame().length);
+
+        if (position >= answers.size()) {
+            throw new NoSuchElementException("Script finished");
+        }
+        int answer = answers.get(position++);
+        answeredAt = System.nanoTime();
+        return answer;
+    }
+
+    public void skipLine() {
+    }
+}
+
+/** Records the answers another input gives, to turn a bot run into a script. */
+class RecordingInput implements GameInput {
+    private final GameInput input;
+    private final List<Integer> answers = new ArrayList<>();
+
+    public RecordingInput(GameInput input) {
+        this.input = input;
+    }
+
+    public int nextInt(Prompt prompt) {
+        int answer = input.nextInt(prompt);
+        answers.add(answer);
+        return answer;
+    }
+
+    public void skipLine() {
+        input.skipLine();
+    }
+
+    public List<Integer> getAnswers() {
+        return answers;
+    }
+}
+
+/**
+ * A scripted session: {@code # key: value} headers (seed and performance
+ * budgets) followed by one answer per line.
+ */
+class Scenario {
+    private final String name;
+    private final Map<String, String> headers;
+    private final List<Integer> answers;
+
+    public Scenario(String name, Map<String, String> headers, List<Integer> answers) {
+        this.name = name;
+        this.headers = headers;
+        this.answers = answers;
+    }
+
+    public static Scenario load(Path file) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        List<Integer> answers = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) continue;
+            if (trimmed.startsWith("#")) {
+                int colon = trimmed.indexOf(':');
+                if (colon > 0) {
+                    headers.put(trimmed.substring(1, colon).trim(), trimmed.substring(colon + 1).trim());
+                }
+                continue;
+            }
+            answers.add(Integer.parseInt(trimmed));
+        }
+        String name = file.getFileName().toString().replaceFirst("\\.script$", "");
+        return new Scenario(name, headers, answers);
+    }
+
+    public String getName() { return name; }
+    public List<Integer> getAnswers() { return answers; }
+    public long getSeed() { return Long.parseLong(headers.getOrDefault("seed", "1")); }
+
+    public long getBudget(String key, long defaultValue) {
+        return headers.containsKey(key) ? Long.parseLong(headers.get(key)) : defaultValue;
+    }
+}
+
+/**
+ * End-to-end regression harness for the interactive path. Each scenario in
+ * {@code harness/scenarios} is played through a real {@link Game} with pacing
+ * off, and the transcript must match {@code harness/golden/<name>.txt} byte
+ * for byte. The timed iterations must also stay within the scenario's budgets
+ * for p99 turn latency and frame size. The process exits with status 1 on any
+ * failure, so it can gate a build.
+ *
+ * <pre>
+ * java TranscriptHarness [--update] [--iterations 20] [--only name]
+ * java TranscriptHarness --record name --seed 42 [--policy BALANCED] [--cap 25]
+ * </pre>
+ */
+class TranscriptHarness {
+    private static final Path SCENARIOS = Paths.get("harness", "scenarios");
+    private static final Path GOLDEN = Paths.get("harness", "golden");
+    /**
+     * About twice the worst p99 seen for any scenario in a baseline of twelve
+     * runs each at 5 and 20 iterations (4.6 ms; typical 2-4 ms), so scheduler
+     * noise passes and a turn that doubles in cost does not.
+     */
+    private static final long DEFAULT_P99_TURN_MICROS = 10_000;
+    private static final int WARMUP_ITERATIONS = 3;
+
+    private final Histogram turnMicros = new Histogram(60_000_000, 7);
+    private final Histogram frameBytes = new Histogram(1 << 20, 7);
+
+    /** Plays a scenario once and returns its transcript. */
+    public String play(Scenario scenario, boolean measured) {
+        ByteArrayOutputStream transcript = new ByteArrayOutputStream();
+        FrameCapture capture = new FrameCapture(transcript);
+        Histogram turns = measured ? turnMicros : new Histogram(60_000_000, 7);
+        Histogram frames = measured ? frameBytes : new Histogram(1 << 20, 7);
+
+        ScriptedInput input = new ScriptedInput(scenario.getAnswers(), capture, turns, frames);
+        Game game = new Game(new Terminal(input, new PrintStream(capture, true, StandardCharsets.UTF_8), false),
+                scenario.getSeed(), null);
+        game.start();
+        return transcript.toString(StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("zb.content.noWatch", "true");
+
+        boolean update = false;
+        int iterations = 20;
+        String only = null;
+        String record = null;
+        long seed = 1;
+        Policy policy = Policy.BALANCED;
+        int cap = 25;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--update" -> update = true;
+                case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                case "--only" -> only = args[++i];
+                case "--record" -> record = args[++i];
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--policy" -> policy = Policy.valueOf(args[++i]);
+                case "--cap" -> cap = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        if (record != null) {
+            recordScenario(record, seed, policy, cap);
+            return;
+        }
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(SCENARIOS)) {
+            files = listing.filter(path -> path.toString().endsWith(".script")).sorted().collect(Collectors.toList());
+        }
+
+        int failures = 0;
+        for (Path file : files) {
+            Scenario scenario = Scenario.load(file);
+            if (only != null && !only.equals(scenario.getName())) continue;
+            failures += new TranscriptHarness().check(scenario, update, iterations);
+        }
+        System.out.println(failures == 0 ? "All scenarios passed." : failures + " check(s) failed.");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private int check(Scenario scenario, boolean update, int iterations) throws IOException {
+        int failures = 0;
+        String transcript = play(scenario, false);
+
+        Path golden = GOLDEN.resolve(scenario.getName() + ".txt");
+        if (update || !Files.exists(golden)) {
+            Files.createDirectories(GOLDEN);
+            Files.writeString(golden, transcript, StandardCharsets.UTF_8);
+            System.out.printf("%-16s golden transcript written (%d bytes)%n", scenario.getName(), transcript.length());
+        } else {
+            String expected = Files.readString(golden, StandardCharsets.UTF_8);
+            if (!expected.equals(transcript)) {
+                System.out.printf("%-16s FAIL transcript differs from golden at line %d%n",
+                        scenario.getName(), firstDifferentLine(expected, transcript));
+                failures++;
+            }
+        }
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            play(scenario, false);
+        }
+        for (int i = 0; i < iterations; i++) {
+            play(scenario, true);
+        }
+
+        long p50 = turnMicros.getValueAtPercentile(50);
+        long p99 = turnMicros.getValueAtPercentile(99);
+        long maxFrame = frameBytes.getMax();
+        System.out.printf("%-16s turns %d  p50 %d us  p99 %d us  max %d us  frame mean %.0f B  max %d B%n",
+                scenario.getName(), turnMicros.getTotalCount() / Math.max(1, iterations), p50, p99,
+                turnMicros.getMax(), frameBytes.getMean(), maxFrame);
+
+        long p99Budget = scenario.getBudget("p99-turn-micros", DEFAULT_P99_TURN_MICROS);
+        if (p99 > p99Budget) {
+            System.out.printf("%-16s FAIL p99 turn latency %d us exceeds budget %d us%n", scenario.getName(), p99, p99Budget);
+            failures++;
+        }
+        long frameBudget = scenario.getBudget("max-frame-bytes", Long.MAX_VALUE);
+        if (maxFrame > frameBudget) {
+            System.out.printf("%-16s FAIL frame of %d bytes exceeds budget %d bytes%n", scenario.getName(), maxFrame, frameBudget);
+            failures++;
+        }
+        return failures;
+    }
+
+    private static int firstDifferentLine(String expected, String actual) {
+        String[] expectedLines = expected.split("\n", -1);
+        String[] actualLines = actual.split("\n", -1);
+        int lines = Math.min(expectedLines.length, actualLines.length);
+        for (int i = 0; i < lines; i++) {
+            if (!expectedLines[i].equals(actualLines[i])) return i + 1;
+        }
+        return lines + 1;
+    }
+
+    private static void recordScenario(String name, long seed, Policy policy, int cap) throws IOException {
+        BotInput bot = new BotInput(policy, cap);
+        RecordingInput recorder = new RecordingInput(bot);
+        Game game = new Game(new Terminal(recorder, Terminal.discard(), false), seed, null);
+        bot.attach(game);
+        game.start();
+
+        StringBuilder script = new StringBuilder();
+        script.append("# Recorded from the ").append(policy).append(" policy, encounter cap ").append(cap).append('\n');
+        script.append("# seed: ").append(seed).append('\n');
+        script.append("# p99-turn-micros: ").append(DEFAULT_P99_TURN_MICROS).append('\n');
+        for (int answer : recorder.getAnswers()) {
+            script.append(answer).append('\n');
+        }
+        Files.createDirectories(SCENARIOS);
+        Files.writeString(SCENARIOS.resolve(name + ".script"), script, StandardCharsets.UTF_8);
+        System.out.printf("Recorded %d answers to %s%n", recorder.getAnswers().size(), SCENARIOS.resolve(name + ".script"));
+    }
+}